@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+/**
+ * one difference between two snapshots, before() is null for ADDED, after() is null for REMOVED
+ */
+public final class Change<T> {
+
+	public enum Type {
+		ADDED,
+		REMOVED,
+		CHANGED;
+	}
+
+	private final Type type;
+	private final T before;
+	private final T after;
+
+	private Change(Type type, T before, T after) {
+		this.type = type;
+		this.before = before;
+		this.after = after;
+	}
+
+	public static <T> Change<T> added(T after) {
+		return new Change<T>(Type.ADDED, null, after);
+	}
+
+	public static <T> Change<T> removed(T before) {
+		return new Change<T>(Type.REMOVED, before, null);
+	}
+
+	public static <T> Change<T> changed(T before, T after) {
+		return new Change<T>(Type.CHANGED, before, after);
+	}
+
+	public Type type() {
+		return type;
+	}
+
+	public T before() {
+		return before;
+	}
+
+	public T after() {
+		return after;
+	}
+
+	@Override
+	public String toString() {
+		switch (type) {
+			case ADDED:
+				return "+" + after;
+			case REMOVED:
+				return "-" + before;
+			default:
+				return before + "->" + after;
+		}
+	}
+}
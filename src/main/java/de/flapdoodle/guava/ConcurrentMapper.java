@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import de.flapdoodle.guava.monads.TryX;
+
+/**
+ * keeps at most maxConcurrency transformations running in the executor, the first failure cancels all running ones,
+ * a null result counts as failure
+ */
+final class ConcurrentMapper {
+
+	private ConcurrentMapper() {
+		// no instance
+	}
+
+	static <S, D> ImmutableList<D> map(Iterable<? extends S> source, final Function<? super S, ? extends D> transformation,
+			Executor executor, int maxConcurrency) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		Preconditions.checkNotNull(executor, "executor is null");
+		Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be bigger then 0");
+
+		CompletionService<Object> completionService = new ExecutorCompletionService<Object>(executor);
+		Map<Future<Object>, Integer> running = Maps.newHashMap();
+		Iterator<? extends S> iterator = source.iterator();
+		Object[] results = new Object[16];
+		int submitted = 0;
+
+		try {
+			while (iterator.hasNext() || !running.isEmpty()) {
+				while (running.size() < maxConcurrency && iterator.hasNext()) {
+					final S value = iterator.next();
+					running.put(completionService.submit(new Callable<Object>() {
+
+						@Override
+						public Object call() {
+							return transformation.apply(value);
+						}
+					}), submitted++);
+				}
+				Future<Object> done = completionService.take();
+				int index = running.remove(done);
+				if (index >= results.length) {
+					results = Arrays.copyOf(results, Math.max(index + 1, results.length * 2));
+				}
+				results[index] = Preconditions.checkNotNull(done.get(), "transformation result is null");
+			}
+		} catch (InterruptedException ix) {
+			cancel(running);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted", ix);
+		} catch (ExecutionException ex) {
+			cancel(running);
+			throw Throwables.propagate(ex.getCause());
+		} catch (RuntimeException rx) {
+			cancel(running);
+			throw rx;
+		}
+
+		@SuppressWarnings("unchecked")
+		ImmutableList<D> ret = (ImmutableList<D>) ImmutableList.copyOf(Arrays.copyOf(results, submitted));
+		return ret;
+	}
+
+	static <S, D> ImmutableList<TryX<D>> tryMap(Iterable<? extends S> source, final Function<? super S, ? extends D> transformation,
+			Executor executor, int maxConcurrency) {
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		return map(source, new Function<S, TryX<D>>() {
+
+			@Override
+			public TryX<D> apply(S value) {
+				try {
+					return TryX.<D> successful(transformation.apply(value));
+				} catch (RuntimeException rx) {
+					return TryX.failure(rx);
+				}
+			}
+		}, executor, maxConcurrency);
+	}
+
+	private static void cancel(Map<Future<Object>, Integer> running) {
+		for (Future<Object> future : running.keySet()) {
+			future.cancel(true);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import com.google.common.collect.ImmutableList;
+
+public final class Diff<T> {
+
+	private final ImmutableList<T> added;
+	private final ImmutableList<T> removed;
+	private final ImmutableList<Pair<T, T>> changed;
+
+	Diff(ImmutableList<T> added, ImmutableList<T> removed, ImmutableList<Pair<T, T>> changed) {
+		this.added = added;
+		this.removed = removed;
+		this.changed = changed;
+	}
+
+	/**
+	 * in after order
+	 */
+	public ImmutableList<T> added() {
+		return added;
+	}
+
+	/**
+	 * in before order
+	 */
+	public ImmutableList<T> removed() {
+		return removed;
+	}
+
+	/**
+	 * pairs of (before, after) in after order
+	 */
+	public ImmutableList<Pair<T, T>> changed() {
+		return changed;
+	}
+
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "Diff[added=" + added + ", removed=" + removed + ", changed=" + changed + "]";
+	}
+}
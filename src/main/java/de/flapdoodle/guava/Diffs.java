@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.google.common.base.Equivalence;
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * differences between two snapshots of elements with a unique key
+ */
+public abstract class Diffs {
+
+	private Diffs() {
+		// no instance
+	}
+
+	/**
+	 * one pass over each snapshot, the before snapshot is hashed by key, elements with the same key are changed if they
+	 * are not equivalent; fails with IllegalArgumentException if a key is not unique within a snapshot
+	 */
+	public static <T> Diff<T> diff(Iterable<? extends T> before, Iterable<? extends T> after, Function<? super T, ?> keyTransformation,
+			Equivalence<? super T> changeDetection) {
+		Preconditions.checkNotNull(before, "before is null");
+		Preconditions.checkNotNull(after, "after is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkNotNull(changeDetection, "changeDetection is null");
+
+		Map<Object, Entry<T>> index = Maps.newLinkedHashMap();
+		for (T value : before) {
+			Object key = keyTransformation.apply(value);
+			Entry<T> old = index.put(key, new Entry<T>(value));
+			Preconditions.checkArgument(old == null, "key %s of %s is not unique in before", key, value);
+		}
+
+		ImmutableList.Builder<T> added = ImmutableList.builder();
+		ImmutableList.Builder<Pair<T, T>> changed = ImmutableList.builder();
+		for (T value : after) {
+			Object key = keyTransformation.apply(value);
+			Entry<T> entry = index.get(key);
+			if (entry == null) {
+				entry = new Entry<T>(null);
+				index.put(key, entry);
+				added.add(value);
+			} else {
+				Preconditions.checkArgument(!entry.matched, "key %s of %s is not unique in after", key, value);
+				if (!changeDetection.equivalent(entry.value, value)) {
+					changed.add(Pair.of(entry.value, value));
+				}
+			}
+			entry.matched = true;
+		}
+
+		ImmutableList.Builder<T> removed = ImmutableList.builder();
+		for (Entry<T> entry : index.values()) {
+			if (!entry.matched) {
+				removed.add(entry.value);
+			}
+		}
+		return new Diff<T>(added.build(), removed.build(), changed.build());
+	}
+
+	/**
+	 * lazy diff of snapshots sorted by key, keeps one element of each side, changes come in key order
+	 * (fails with IllegalArgumentException if a snapshot is not sorted or a key is not unique)
+	 */
+	public static <T, K> Iterable<Change<T>> diffSorted(final Iterable<? extends T> before, final Iterable<? extends T> after,
+			final Function<? super T, K> keyTransformation, final Comparator<? super K> keyComparator,
+			final Equivalence<? super T> changeDetection) {
+		Preconditions.checkNotNull(before, "before is null");
+		Preconditions.checkNotNull(after, "after is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkNotNull(keyComparator, "keyComparator is null");
+		Preconditions.checkNotNull(changeDetection, "changeDetection is null");
+		return new Iterable<Change<T>>() {
+
+			@Override
+			public Iterator<Change<T>> iterator() {
+				return new SortedDiffIterator<T, K>(before.iterator(), after.iterator(), keyTransformation, keyComparator, changeDetection);
+			}
+
+			@Override
+			public String toString() {
+				return Iterators.toString(iterator());
+			}
+		};
+	}
+
+	private static final class Entry<T> {
+
+		final T value;
+		boolean matched = false;
+
+		Entry(T value) {
+			this.value = value;
+		}
+	}
+
+	static final class SortedDiffIterator<T, K> extends AbstractIterator<Change<T>> {
+
+		private final Side<T, K> before;
+		private final Side<T, K> after;
+		private final Comparator<? super K> keyComparator;
+		private final Equivalence<? super T> changeDetection;
+
+		SortedDiffIterator(Iterator<? extends T> before, Iterator<? extends T> after, Function<? super T, K> keyTransformation,
+				Comparator<? super K> keyComparator, Equivalence<? super T> changeDetection) {
+			this.before = new Side<T, K>("before", before, keyTransformation, keyComparator);
+			this.after = new Side<T, K>("after", after, keyTransformation, keyComparator);
+			this.keyComparator = keyComparator;
+			this.changeDetection = changeDetection;
+		}
+
+		@Override
+		protected Change<T> computeNext() {
+			while (before.hasNext() || after.hasNext()) {
+				if (!after.hasNext()) {
+					return Change.removed(before.next());
+				}
+				if (!before.hasNext()) {
+					return Change.added(after.next());
+				}
+				int compared = keyComparator.compare(before.peekKey(), after.peekKey());
+				if (compared < 0) {
+					return Change.removed(before.next());
+				}
+				if (compared > 0) {
+					return Change.added(after.next());
+				}
+				T old = before.next();
+				T current = after.next();
+				if (!changeDetection.equivalent(old, current)) {
+					return Change.changed(old, current);
+				}
+			}
+			return endOfData();
+		}
+	}
+
+	private static final class Side<T, K> {
+
+		private final String name;
+		private final PeekingIterator<? extends T> iterator;
+		private final Function<? super T, K> keyTransformation;
+		private final Comparator<? super K> keyComparator;
+
+		private boolean hasLastKey = false;
+		private K lastKey;
+		private boolean hasPeekedKey = false;
+		private K peekedKey;
+
+		Side(String name, Iterator<? extends T> iterator, Function<? super T, K> keyTransformation, Comparator<? super K> keyComparator) {
+			this.name = name;
+			this.iterator = Iterators.peekingIterator(iterator);
+			this.keyTransformation = keyTransformation;
+			this.keyComparator = keyComparator;
+		}
+
+		boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		K peekKey() {
+			if (!hasPeekedKey) {
+				peekedKey = keyTransformation.apply(iterator.peek());
+				hasPeekedKey = true;
+				if (hasLastKey) {
+					Preconditions.checkArgument(keyComparator.compare(lastKey, peekedKey) < 0, "%s is not sorted by unique keys: %s >= %s",
+							name, lastKey, peekedKey);
+				}
+			}
+			return peekedKey;
+		}
+
+		T next() {
+			K key = peekKey();
+			hasPeekedKey = false;
+			hasLastKey = true;
+			lastKey = key;
+			return iterator.next();
+		}
+	}
+}
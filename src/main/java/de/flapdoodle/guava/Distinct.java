@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+
+import de.flapdoodle.guava.functions.ToLongFunction;
+
+/**
+ * keeps the first element for each key, the seen keys are tracked in open addressing sets instead of a map
+ * from key to element
+ */
+final class Distinct {
+
+	private Distinct() {
+		// no instance
+	}
+
+	static <T> Iterable<T> by(final Iterable<T> source, final Function<? super T, ?> keyTransformation) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		return new FilteredIterable<T>(source) {
+
+			@Override
+			Predicate<T> newFilter() {
+				final OpenHashSet seen = new OpenHashSet(16);
+				return new Predicate<T>() {
+
+					@Override
+					public boolean apply(T value) {
+						return seen.add(keyTransformation.apply(value));
+					}
+				};
+			}
+		};
+	}
+
+	static <T> Iterable<T> byLong(final Iterable<T> source, final ToLongFunction<? super T> keyTransformation) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		return new FilteredIterable<T>(source) {
+
+			@Override
+			Predicate<T> newFilter() {
+				final OpenHashSet.OfLong seen = new OpenHashSet.OfLong(16);
+				return new Predicate<T>() {
+
+					@Override
+					public boolean apply(T value) {
+						return seen.add(keyTransformation.applyAsLong(value));
+					}
+				};
+			}
+		};
+	}
+
+	static <T> Iterable<T> approximatelyBy(final Iterable<T> source, final Function<? super T, ?> keyTransformation, final int maxKeys) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkArgument(maxKeys > 0, "maxKeys must be bigger then 0");
+		return new FilteredIterable<T>(source) {
+
+			@Override
+			Predicate<T> newFilter() {
+				final OpenHashSet.Approximate seen = new OpenHashSet.Approximate(maxKeys);
+				return new Predicate<T>() {
+
+					@Override
+					public boolean apply(T value) {
+						return seen.add(keyTransformation.apply(value));
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * computes keys and removes duplicates inside each chunk in the pool, then merges the chunks in source order,
+	 * null elements are kept like in the sequential version
+	 */
+	static <T> List<T> by(List<T> source, Function<? super T, ?> keyTransformation, ForkJoinPool pool) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkNotNull(pool, "pool is null");
+
+		List<T> randomAccess = source instanceof RandomAccess
+				? source
+				: new ArrayList<T>(source);
+		int chunkSize = Math.max(1, randomAccess.size() / (pool.getParallelism() * 4));
+		Chunk[] chunks = new Chunk[(randomAccess.size() + chunkSize - 1) / chunkSize];
+		pool.invoke(new ChunkTask(randomAccess, keyTransformation, chunks, chunkSize, 0, chunks.length));
+
+		OpenHashSet seen = new OpenHashSet(chunks.length > 0
+				? chunks[0].size
+				: 0);
+		List<T> ret = new ArrayList<T>();
+		for (Chunk chunk : chunks) {
+			for (int i = 0; i < chunk.size; i++) {
+				if (seen.add(chunk.keys[i], chunk.hashes[i])) {
+					@SuppressWarnings("unchecked")
+					T value = (T) chunk.values[i];
+					ret.add(value);
+				}
+			}
+		}
+		return Collections.unmodifiableList(ret);
+	}
+
+	abstract static class FilteredIterable<T> implements Iterable<T> {
+
+		private final Iterable<T> source;
+
+		FilteredIterable(Iterable<T> source) {
+			this.source = source;
+		}
+
+		abstract Predicate<T> newFilter();
+
+		@Override
+		public Iterator<T> iterator() {
+			return Iterators.filter(source.iterator(), newFilter());
+		}
+
+		@Override
+		public String toString() {
+			return Iterators.toString(iterator());
+		}
+	}
+
+	static final class Chunk {
+
+		final Object[] values;
+		final Object[] keys;
+		final int[] hashes;
+		final int size;
+
+		Chunk(Object[] values, Object[] keys, int[] hashes, int size) {
+			this.values = values;
+			this.keys = keys;
+			this.hashes = hashes;
+			this.size = size;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static final class ChunkTask extends RecursiveAction {
+
+		private final List<?> source;
+		private final Function<Object, ?> keyTransformation;
+		private final Chunk[] chunks;
+		private final int chunkSize;
+		private final int firstChunk;
+		private final int lastChunk;
+
+		@SuppressWarnings("unchecked")
+		ChunkTask(List<?> source, Function<?, ?> keyTransformation, Chunk[] chunks, int chunkSize, int firstChunk, int lastChunk) {
+			this.source = source;
+			this.keyTransformation = (Function<Object, ?>) keyTransformation;
+			this.chunks = chunks;
+			this.chunkSize = chunkSize;
+			this.firstChunk = firstChunk;
+			this.lastChunk = lastChunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (lastChunk - firstChunk > 1) {
+				int middle = (firstChunk + lastChunk) >>> 1;
+				invokeAll(new ChunkTask(source, keyTransformation, chunks, chunkSize, firstChunk, middle),
+						new ChunkTask(source, keyTransformation, chunks, chunkSize, middle, lastChunk));
+			} else if (lastChunk > firstChunk) {
+				int from = firstChunk * chunkSize;
+				int to = Math.min(source.size(), from + chunkSize);
+				Object[] values = new Object[to - from];
+				Object[] keys = new Object[to - from];
+				int[] hashes = new int[to - from];
+				OpenHashSet seen = new OpenHashSet(to - from);
+				int size = 0;
+				for (int i = from; i < to; i++) {
+					Object value = source.get(i);
+					Object key = keyTransformation.apply(value);
+					int hash = OpenHashSet.hash(key);
+					if (seen.add(key, hash)) {
+						values[size] = value;
+						keys[size] = key;
+						hashes[size] = hash;
+						size++;
+					}
+				}
+				chunks[firstChunk] = new Chunk(values, keys, hashes, size);
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import de.flapdoodle.guava.functions.LongBinaryOperator;
+import de.flapdoodle.guava.functions.ToLongFunction;
+
+/**
+ * flatten result as parallel arrays: each parent is stored once, each row is an index into the parents plus
+ * the child reference and/or extracted long fields
+ */
+public final class FlatColumns<P, T> {
+
+	private final Object[] parents;
+	private final int parentCount;
+	private final int[] parentIndex;
+	private final Object[] values;
+	private final long[][] longColumns;
+	private final int size;
+
+	private FlatColumns(Object[] parents, int parentCount, int[] parentIndex, Object[] values, long[][] longColumns, int size) {
+		this.parents = parents;
+		this.parentCount = parentCount;
+		this.parentIndex = parentIndex;
+		this.values = values;
+		this.longColumns = longColumns;
+		this.size = size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int parentCount() {
+		return parentCount;
+	}
+
+	public int parentIndex(int row) {
+		Preconditions.checkElementIndex(row, size, "row");
+		return parentIndex[row];
+	}
+
+	@SuppressWarnings("unchecked")
+	public P parentAt(int parentIndex) {
+		Preconditions.checkElementIndex(parentIndex, parentCount, "parentIndex");
+		return (P) parents[parentIndex];
+	}
+
+	public P parent(int row) {
+		return parentAt(parentIndex(row));
+	}
+
+	@SuppressWarnings("unchecked")
+	public T value(int row) {
+		Preconditions.checkState(values != null, "child references were not kept");
+		Preconditions.checkElementIndex(row, size, "row");
+		return (T) values[row];
+	}
+
+	public int longColumns() {
+		return longColumns.length;
+	}
+
+	public long getLong(int row, int column) {
+		Preconditions.checkElementIndex(row, size, "row");
+		Preconditions.checkElementIndex(column, longColumns.length, "column");
+		return longColumns[column][row];
+	}
+
+	/**
+	 * a Flat is created for each accessed row
+	 */
+	public List<Flat<P, T>> rows() {
+		Preconditions.checkState(values != null, "child references were not kept");
+		return new Rows();
+	}
+
+	public void visit(FlatVisitor<? super P, ? super T> visitor) {
+		Preconditions.checkState(values != null, "child references were not kept");
+		for (int row = 0; row < size; row++) {
+			visitor.visit(parentAt(parentIndex[row]), value(row));
+		}
+	}
+
+	public <L> L foldLeft(Foldleft<? super T, L> fold, L left) {
+		Preconditions.checkState(values != null, "child references were not kept");
+		L ret = left;
+		for (int row = 0; row < size; row++) {
+			ret = fold.apply(ret, value(row));
+		}
+		return ret;
+	}
+
+	public long foldLong(int column, LongBinaryOperator fold, long left) {
+		Preconditions.checkElementIndex(column, longColumns.length, "column");
+		long[] longs = longColumns[column];
+		long ret = left;
+		for (int row = 0; row < size; row++) {
+			ret = fold.applyAsLong(ret, longs[row]);
+		}
+		return ret;
+	}
+
+	/**
+	 * one result per parent index, parents without children keep the left value
+	 */
+	public long[] foldLongByParent(int column, LongBinaryOperator fold, long left) {
+		Preconditions.checkElementIndex(column, longColumns.length, "column");
+		long[] longs = longColumns[column];
+		long[] ret = new long[parentCount];
+		Arrays.fill(ret, left);
+		for (int row = 0; row < size; row++) {
+			int index = parentIndex[row];
+			ret[index] = fold.applyAsLong(ret[index], longs[row]);
+		}
+		return ret;
+	}
+
+	static <P, T> FlatColumns<P, T> of(Iterable<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub,
+			boolean keepValues, List<? extends ToLongFunction<? super T>> fields) {
+		Preconditions.checkNotNull(parents, "parents is null");
+		Preconditions.checkNotNull(sub, "sub is null");
+		ImmutableList<? extends ToLongFunction<? super T>> fieldList = ImmutableList.copyOf(fields);
+
+		int capacity = 16;
+		Object[] parentArray = new Object[capacity];
+		int parentCount = 0;
+		int[] parentIndex = new int[capacity];
+		Object[] values = keepValues
+				? new Object[capacity]
+				: null;
+		long[][] longColumns = new long[fieldList.size()][capacity];
+		int size = 0;
+
+		for (P parent : parents) {
+			if (parentCount == parentArray.length) {
+				parentArray = Arrays.copyOf(parentArray, parentCount * 2);
+			}
+			int index = parentCount++;
+			parentArray[index] = parent;
+			for (T child : sub.apply(parent)) {
+				if (size == parentIndex.length) {
+					parentIndex = Arrays.copyOf(parentIndex, size * 2);
+					if (values != null) {
+						values = Arrays.copyOf(values, size * 2);
+					}
+					for (int column = 0; column < longColumns.length; column++) {
+						longColumns[column] = Arrays.copyOf(longColumns[column], size * 2);
+					}
+				}
+				parentIndex[size] = index;
+				if (values != null) {
+					values[size] = child;
+				}
+				for (int column = 0; column < longColumns.length; column++) {
+					longColumns[column][size] = fieldList.get(column).applyAsLong(child);
+				}
+				size++;
+			}
+		}
+		return new FlatColumns<P, T>(parentArray, parentCount, parentIndex, values, longColumns, size);
+	}
+
+	private final class Rows extends AbstractList<Flat<P, T>> implements RandomAccess {
+
+		@Override
+		public Flat<P, T> get(int index) {
+			return new Flat<P, T>(parent(index), value(index));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+
+/**
+ * one mutable position for all parent/child pairs, parent() and value() change with every call to next()
+ */
+public final class FlatCursor<P, T> {
+
+	private final Iterator<? extends P> parents;
+	private final Function<? super P, ? extends Iterable<? extends T>> sub;
+
+	private List<? extends T> childList;
+	private int childIndex;
+	private Iterator<? extends T> childIterator;
+
+	private boolean positioned = false;
+	private P parent;
+	private T value;
+
+	FlatCursor(Iterator<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub) {
+		this.parents = Preconditions.checkNotNull(parents, "parents is null");
+		this.sub = Preconditions.checkNotNull(sub, "sub is null");
+	}
+
+	public boolean next() {
+		while (true) {
+			if (childList != null) {
+				if (childIndex < childList.size()) {
+					return positionAt(childList.get(childIndex++));
+				}
+				childList = null;
+			} else if (childIterator != null) {
+				if (childIterator.hasNext()) {
+					return positionAt(childIterator.next());
+				}
+				childIterator = null;
+			}
+			if (!parents.hasNext()) {
+				positioned = false;
+				parent = null;
+				value = null;
+				return false;
+			}
+			parent = parents.next();
+			Iterable<? extends T> children = sub.apply(parent);
+			if (children instanceof List && children instanceof RandomAccess) {
+				childList = (List<? extends T>) children;
+				childIndex = 0;
+			} else {
+				childIterator = children.iterator();
+			}
+		}
+	}
+
+	public P parent() {
+		checkPositioned();
+		return parent;
+	}
+
+	public T value() {
+		checkPositioned();
+		return value;
+	}
+
+	/**
+	 * the only place where a Flat is created
+	 */
+	public Flat<P, T> materialize() {
+		checkPositioned();
+		return new Flat<P, T>(parent, value);
+	}
+
+	private boolean positionAt(T child) {
+		value = child;
+		positioned = true;
+		return true;
+	}
+
+	private void checkPositioned() {
+		Preconditions.checkState(positioned, "cursor is not positioned, call next() first");
+	}
+}
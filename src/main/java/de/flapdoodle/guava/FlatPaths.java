@@ -0,0 +1,306 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * result of an n level flatten, one row per leaf, stored as one column per level, so each ancestor
+ * of a row can be read in O(1) and there is no object per row
+ */
+public final class FlatPaths {
+
+	static final int SEQUENTIAL_THRESHOLD = 64;
+	static final int MAX_SURPLUS_TASKS = 2;
+
+	private final Object[][] columns;
+	private final int size;
+
+	private FlatPaths(Object[][] columns, int size) {
+		this.columns = columns;
+		this.size = size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * number of levels, the root level included
+	 */
+	public int depth() {
+		return columns.length;
+	}
+
+	public Object get(int row, int level) {
+		Preconditions.checkElementIndex(row, size, "row");
+		Preconditions.checkElementIndex(level, columns.length, "level");
+		return columns[level][row];
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> List<T> column(int level) {
+		Preconditions.checkElementIndex(level, columns.length, "level");
+		return (List<T>) Collections.unmodifiableList(Arrays.asList(columns[level]).subList(0, size));
+	}
+
+	/**
+	 * new array with one element per level
+	 */
+	public Object[] row(int row) {
+		Preconditions.checkElementIndex(row, size, "row");
+		Object[] ret = new Object[columns.length];
+		for (int level = 0; level < columns.length; level++) {
+			ret[level] = columns[level][row];
+		}
+		return ret;
+	}
+
+	public List<Object[]> rows() {
+		return new Rows();
+	}
+
+	static FlatPaths of(Iterable<?> roots, List<? extends Function<?, ? extends Iterable<?>>> subs) {
+		Preconditions.checkNotNull(roots, "roots is null");
+		Preconditions.checkNotNull(subs, "subs is null");
+		Builder builder = new Builder(ImmutableList.copyOf(subs));
+		for (Object root : roots) {
+			builder.walk(0, root);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * always splits sibling ranges and child lists longer than SEQUENTIAL_THRESHOLD; smaller ones are split
+	 * down to single subtrees while there is depth left and the worker has few queued tasks, so idle workers
+	 * can steal parts of deep or expensive subtrees; each part is flattened sequentially into its own columns
+	 */
+	static FlatPaths of(Iterable<?> roots, List<? extends Function<?, ? extends Iterable<?>>> subs, ForkJoinPool pool,
+			FlatOrder order) {
+		Preconditions.checkNotNull(roots, "roots is null");
+		Preconditions.checkNotNull(subs, "subs is null");
+		Preconditions.checkNotNull(pool, "pool is null");
+		Preconditions.checkNotNull(order, "order is null");
+		ImmutableList<? extends Function<?, ? extends Iterable<?>>> subList = ImmutableList.copyOf(subs);
+		List<?> rootList = roots instanceof List && roots instanceof RandomAccess
+				? (List<?>) roots
+				: Lists.newArrayList(roots);
+		Queue<Builder> unordered = new ConcurrentLinkedQueue<Builder>();
+		DeepTask task = new DeepTask(subList, order, unordered, rootList, 0, rootList.size(), 0, new Object[0]);
+		pool.invoke(task);
+
+		List<Builder> parts = Lists.newArrayList(unordered);
+		for (Object part : task.parts) {
+			parts.add((Builder) part);
+		}
+		return concat(subList.size() + 1, parts);
+	}
+
+	private static FlatPaths concat(int depth, List<Builder> parts) {
+		int size = 0;
+		for (Builder part : parts) {
+			size += part.size;
+		}
+		Object[][] columns = new Object[depth][size];
+		int offset = 0;
+		for (Builder part : parts) {
+			for (int level = 0; level < depth; level++) {
+				System.arraycopy(part.columns[level], 0, columns[level], offset, part.size);
+			}
+			offset += part.size;
+		}
+		return new FlatPaths(columns, size);
+	}
+
+	private final class Rows extends AbstractList<Object[]> implements RandomAccess {
+
+		@Override
+		public Object[] get(int index) {
+			return row(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static final class Builder {
+
+		private final ImmutableList<? extends Function<?, ? extends Iterable<?>>> subs;
+		private final Object[] path;
+		private final Object[][] columns;
+		private int size = 0;
+
+		Builder(ImmutableList<? extends Function<?, ? extends Iterable<?>>> subs) {
+			this(subs, new Object[0]);
+		}
+
+		Builder(ImmutableList<? extends Function<?, ? extends Iterable<?>>> subs, Object[] prefix) {
+			this.subs = subs;
+			this.path = Arrays.copyOf(prefix, subs.size() + 1);
+			this.columns = new Object[subs.size() + 1][16];
+		}
+
+		@SuppressWarnings("unchecked")
+		void walk(int level, Object node) {
+			path[level] = node;
+			if (level == subs.size()) {
+				append();
+			} else {
+				Function<Object, ? extends Iterable<?>> sub = (Function<Object, ? extends Iterable<?>>) subs.get(level);
+				for (Object child : sub.apply(node)) {
+					walk(level + 1, child);
+				}
+			}
+		}
+
+		void walkChildren(int level, Object node, Iterable<?> children) {
+			path[level] = node;
+			for (Object child : children) {
+				walk(level + 1, child);
+			}
+		}
+
+		private void append() {
+			if (size == columns[0].length) {
+				for (int level = 0; level < columns.length; level++) {
+					columns[level] = Arrays.copyOf(columns[level], size * 2);
+				}
+			}
+			for (int level = 0; level < columns.length; level++) {
+				columns[level][size] = path[level];
+			}
+			size++;
+		}
+
+		FlatPaths build() {
+			return new FlatPaths(columns, size);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class DeepTask extends RecursiveAction {
+
+		private final ImmutableList<? extends Function<?, ? extends Iterable<?>>> subs;
+		private final FlatOrder order;
+		private final Queue<Builder> unordered;
+		private final List<?> siblings;
+		private final int from;
+		private final int to;
+		private final int level;
+		private final Object[] prefix;
+		private final List<Object> parts = Lists.newArrayList();
+
+		DeepTask(ImmutableList<? extends Function<?, ? extends Iterable<?>>> subs, FlatOrder order, Queue<Builder> unordered,
+				List<?> siblings, int from, int to, int level, Object[] prefix) {
+			this.subs = subs;
+			this.order = order;
+			this.unordered = unordered;
+			this.siblings = siblings;
+			this.from = from;
+			this.to = to;
+			this.level = level;
+			this.prefix = prefix;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > SEQUENTIAL_THRESHOLD || (to - from > 1 && level < subs.size() && workersAreIdle())) {
+				int middle = (from + to) >>> 1;
+				DeepTask left = new DeepTask(subs, order, unordered, siblings, from, middle, level, prefix);
+				DeepTask right = new DeepTask(subs, order, unordered, siblings, middle, to, level, prefix);
+				invokeAll(left, right);
+				parts.addAll(left.parts);
+				parts.addAll(right.parts);
+			} else {
+				Builder current = new Builder(subs, prefix);
+				for (int i = from; i < to; i++) {
+					Object node = siblings.get(i);
+					List<?> children = level < subs.size()
+							? children(level, node)
+							: null;
+					if (children != null && (children.size() > SEQUENTIAL_THRESHOLD
+							|| (children.size() > 1 && level + 1 < subs.size() && workersAreIdle()))) {
+						// big subtree or children which need their own child function calls, split at this parent
+						add(current);
+						current = new Builder(subs, prefix);
+						Object[] childPrefix = Arrays.copyOf(prefix, level + 1);
+						childPrefix[level] = node;
+						parts.add(new DeepTask(subs, order, unordered, children, 0, children.size(), level + 1, childPrefix).fork());
+					} else if (children != null) {
+						current.walkChildren(level, node, children);
+					} else {
+						current.walk(level, node);
+					}
+				}
+				add(current);
+				joinForked();
+			}
+		}
+
+		/**
+		 * few queued tasks of this worker: other workers may steal, so splitting pays off
+		 */
+		private static boolean workersAreIdle() {
+			return getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS;
+		}
+
+		private void add(Builder builder) {
+			if (builder.size > 0) {
+				if (order == FlatOrder.UNORDERED) {
+					unordered.add(builder);
+				} else {
+					parts.add(builder);
+				}
+			}
+		}
+
+		private void joinForked() {
+			for (int i = 0; i < parts.size(); i++) {
+				if (parts.get(i) instanceof DeepTask) {
+					DeepTask task = (DeepTask) parts.get(i);
+					task.join();
+					parts.remove(i);
+					parts.addAll(i, task.parts);
+					i += task.parts.size() - 1;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private List<?> children(int level, Object node) {
+			Iterable<?> children = ((Function<Object, ? extends Iterable<?>>) subs.get(level)).apply(node);
+			return children instanceof List && children instanceof RandomAccess
+					? (List<?>) children
+					: Lists.newArrayList(children);
+		}
+	}
+}
@@ -16,8 +16,17 @@
  */
 package de.flapdoodle.guava;
 
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+
 import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import de.flapdoodle.guava.functions.ToLongFunction;
 
 
 public abstract class Flatter {
@@ -31,7 +40,7 @@ public abstract class Flatter {
   
           @Override
           public Iterable<? extends Flat<P,T>> apply(final P parent) {
-              return Iterables.transform(sub.apply(parent),new Function<T, Flat<P,T>>() {
+              return transform(sub.apply(parent),new Function<T, Flat<P,T>>() {
                   public Flat<P,T> apply(T value) {
                       return new Flat<P, T>(parent, value);
                   };
@@ -46,7 +55,7 @@ public abstract class Flatter {
   
           @Override
           public Iterable<? extends Flat<Flat<A,P>, T>> apply(final Flat<A,P> parent) {
-              return Iterables.transform(sub.apply(parent.value()),new Function<T, Flat<Flat<A,P>,T>>() {
+              return transform(sub.apply(parent.value()),new Function<T, Flat<Flat<A,P>,T>>() {
                   public Flat<Flat<A,P>,T> apply(T value) {
                       return new Flat<Flat<A,P>, T>(parent, value);
                   };
@@ -55,4 +64,95 @@ public abstract class Flatter {
           
       };
   }
+
+  /**
+   * calls the visitor for each parent/child pair in the same order as flat(sub), without creating any Flat
+   */
+  public static <P,T> void visit(Iterable<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub, FlatVisitor<? super P, ? super T> visitor) {
+      Preconditions.checkNotNull(parents, "parents is null");
+      Preconditions.checkNotNull(sub, "sub is null");
+      Preconditions.checkNotNull(visitor, "visitor is null");
+      if (parents instanceof List && parents instanceof RandomAccess) {
+          List<? extends P> parentList = (List<? extends P>) parents;
+          for (int i = 0, size = parentList.size(); i < size; i++) {
+              visitChildren(parentList.get(i), sub, visitor);
+          }
+      } else {
+          for (P parent : parents) {
+              visitChildren(parent, sub, visitor);
+          }
+      }
+  }
+
+  public static <P,T> FlatCursor<P,T> cursor(Iterable<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub) {
+      Preconditions.checkNotNull(parents, "parents is null");
+      return new FlatCursor<P, T>(parents.iterator(), sub);
+  }
+
+  /**
+   * flattens root -> subs.get(0) -> subs.get(1) ... into one row per leaf, parents without children give no row like in flat(sub)
+   */
+  public static FlatPaths deep(Iterable<?> roots, List<? extends Function<?, ? extends Iterable<?>>> subs) {
+      return FlatPaths.of(roots, subs);
+  }
+
+  /**
+   * same rows as deep(roots, subs), parts of the tree are flattened in the pool
+   */
+  public static FlatPaths deep(Iterable<?> roots, List<? extends Function<?, ? extends Iterable<?>>> subs, ForkJoinPool pool, FlatOrder order) {
+      return FlatPaths.of(roots, subs, pool, order);
+  }
+
+  /**
+   * same pairs as flat(sub) applied to each parent, parents with many children are split in the pool
+   */
+  public static <P,T> ImmutableList<Flat<P,T>> flat(Iterable<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub, ForkJoinPool pool, FlatOrder order) {
+      FlatPaths paths = deep(parents, ImmutableList.<Function<?, ? extends Iterable<?>>> of(sub), pool, order);
+      List<P> parentColumn = paths.column(0);
+      List<T> valueColumn = paths.column(1);
+      ImmutableList.Builder<Flat<P,T>> builder = ImmutableList.builder();
+      for (int i = 0, size = paths.size(); i < size; i++) {
+          builder.add(new Flat<P, T>(parentColumn.get(i), valueColumn.get(i)));
+      }
+      return builder.build();
+  }
+
+  /**
+   * same pairs as flat(sub) applied to each parent, stored as parent index and child reference columns
+   */
+  public static <P,T> FlatColumns<P,T> columns(Iterable<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub) {
+      return FlatColumns.of(parents, sub, true, ImmutableList.<ToLongFunction<? super T>>of());
+  }
+
+  /**
+   * same pairs as flat(sub) applied to each parent, keeps only the parent index and the extracted fields, no child reference
+   */
+  public static <P,T> FlatColumns<P,T> columns(Iterable<? extends P> parents, Function<? super P, ? extends Iterable<? extends T>> sub, List<? extends ToLongFunction<? super T>> fields) {
+      return FlatColumns.of(parents, sub, false, fields);
+  }
+
+  private static <P,T> void visitChildren(P parent, Function<? super P, ? extends Iterable<? extends T>> sub, FlatVisitor<? super P, ? super T> visitor) {
+      Iterable<? extends T> children = sub.apply(parent);
+      if (children instanceof List && children instanceof RandomAccess) {
+          List<? extends T> childList = (List<? extends T>) children;
+          for (int i = 0, size = childList.size(); i < size; i++) {
+              visitor.visit(parent, childList.get(i));
+          }
+      } else {
+          for (T child : children) {
+              visitor.visit(parent, child);
+          }
+      }
+  }
+
+  /**
+   * keeps size and random access of list children, so the result can be split by index
+   */
+  @SuppressWarnings("unchecked")
+  private static <T,D> Iterable<D> transform(Iterable<? extends T> children, Function<T, D> transformation) {
+      if (children instanceof List) {
+          return Lists.transform((List<T>) children, transformation);
+      }
+      return Iterables.transform((Iterable<T>) children, transformation);
+  }
 }
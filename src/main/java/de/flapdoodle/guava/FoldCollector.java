@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import de.flapdoodle.guava.functions.BiFunction;
+
+/**
+ * a fold with a start value supplier, a combiner for partial results and a finisher, maps one to one
+ * to java.util.stream.Collector.of(supplier, accumulator, combiner, finisher, characteristics)
+ */
+public final class FoldCollector<R, A, L> {
+
+	public enum Characteristics {
+		/**
+		 * the result does not depend on the order in which partial results are combined
+		 */
+		UNORDERED,
+		/**
+		 * the finisher is the identity, the accumulated value is the result
+		 */
+		IDENTITY_FINISH;
+	}
+
+	private final Supplier<A> supplier;
+	private final Foldleft<? super R, A> accumulator;
+	private final BiFunction<A, A, A> combiner;
+	private final Function<? super A, L> finisher;
+	private final ImmutableSet<Characteristics> characteristics;
+
+	private FoldCollector(Supplier<A> supplier, Foldleft<? super R, A> accumulator, BiFunction<A, A, A> combiner,
+			Function<? super A, L> finisher, ImmutableSet<Characteristics> characteristics) {
+		this.supplier = Preconditions.checkNotNull(supplier, "supplier is null");
+		this.accumulator = Preconditions.checkNotNull(accumulator, "accumulator is null");
+		this.combiner = Preconditions.checkNotNull(combiner, "combiner is null");
+		this.finisher = Preconditions.checkNotNull(finisher, "finisher is null");
+		this.characteristics = characteristics;
+	}
+
+	public Supplier<A> supplier() {
+		return supplier;
+	}
+
+	public Foldleft<? super R, A> accumulator() {
+		return accumulator;
+	}
+
+	public BiFunction<A, A, A> combiner() {
+		return combiner;
+	}
+
+	public Function<? super A, L> finisher() {
+		return finisher;
+	}
+
+	public Set<Characteristics> characteristics() {
+		return characteristics;
+	}
+
+	public static <R, L> FoldCollector<R, L, L> of(Supplier<L> supplier, Foldleft<? super R, L> accumulator, BiFunction<L, L, L> combiner,
+			Characteristics... characteristics) {
+		return new FoldCollector<R, L, L>(supplier, accumulator, combiner, Functions.<L> identity(), Sets.immutableEnumSet(
+				Characteristics.IDENTITY_FINISH, characteristics));
+	}
+
+	public static <R, A, L> FoldCollector<R, A, L> of(Supplier<A> supplier, Foldleft<? super R, A> accumulator,
+			BiFunction<A, A, A> combiner, Function<? super A, L> finisher, Characteristics... characteristics) {
+		return new FoldCollector<R, A, L>(supplier, accumulator, combiner, finisher, Sets.immutableEnumSet(Arrays.asList(characteristics)));
+	}
+}
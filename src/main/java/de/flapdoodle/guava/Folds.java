@@ -17,19 +17,27 @@
 package de.flapdoodle.guava;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
+import de.flapdoodle.guava.functions.BiFunction;
+
 public abstract class Folds {
 
 	private Folds() {
@@ -67,6 +75,209 @@ public abstract class Folds {
 		return new IterableTransformationFold<R, V, Iterable<? extends V>>(new IterableFoldImpl<V>(), valueTransformation);
 	}
 
+
+	public static <R, L> FoldCollector<R, L, L> asCollector(Foldleft<? super R, L> fold, Supplier<L> leftValue,
+			BiFunction<L, L, L> combiner, FoldCollector.Characteristics... characteristics) {
+		return FoldCollector.of(leftValue, fold, combiner, characteristics);
+	}
+
+	/**
+	 * same result as asListFold, but collects into one mutable list per chunk
+	 */
+	public static <R, V> FoldCollector<R, ?, ImmutableList<? extends V>> asListCollector(
+			final Function<R, ? extends Collection<? extends V>> valueTransformation) {
+		Preconditions.checkNotNull(valueTransformation, "valueTransformation is null");
+		return FoldCollector.of(new Supplier<List<V>>() {
+
+			@Override
+			public List<V> get() {
+				return Lists.newArrayList();
+			}
+		}, new Foldleft<R, List<V>>() {
+
+			@Override
+			public List<V> apply(List<V> left, R value) {
+				left.addAll(valueTransformation.apply(value));
+				return left;
+			}
+		}, new BiFunction<List<V>, List<V>, List<V>>() {
+
+			@Override
+			public List<V> apply(List<V> left, List<V> right) {
+				left.addAll(right);
+				return left;
+			}
+		}, new Function<List<V>, ImmutableList<? extends V>>() {
+
+			@Override
+			public ImmutableList<? extends V> apply(List<V> values) {
+				return ImmutableList.copyOf(values);
+			}
+		});
+	}
+
+	/**
+	 * same result as asSetFold (fails on colliding entries), but collects into one mutable set per chunk
+	 */
+	public static <R, V> FoldCollector<R, ?, ImmutableSet<? extends V>> asSetCollector(
+			final Function<R, ? extends Collection<? extends V>> valueTransformation) {
+		Preconditions.checkNotNull(valueTransformation, "valueTransformation is null");
+		return FoldCollector.of(new Supplier<Set<V>>() {
+
+			@Override
+			public Set<V> get() {
+				return Sets.newLinkedHashSet();
+			}
+		}, new Foldleft<R, Set<V>>() {
+
+			@Override
+			public Set<V> apply(Set<V> left, R value) {
+				return addAllUnique(left, valueTransformation.apply(value));
+			}
+		}, new BiFunction<Set<V>, Set<V>, Set<V>>() {
+
+			@Override
+			public Set<V> apply(Set<V> left, Set<V> right) {
+				return addAllUnique(left, right);
+			}
+		}, new Function<Set<V>, ImmutableSet<? extends V>>() {
+
+			@Override
+			public ImmutableSet<? extends V> apply(Set<V> values) {
+				return ImmutableSet.copyOf(values);
+			}
+		}, FoldCollector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * same result as asEnumSetFold (fails on colliding entries), but adds to one EnumSet per chunk
+	 */
+	public static <R, V extends Enum<V>> FoldCollector<R, EnumSet<V>, EnumSet<V>> asEnumSetCollector(final Class<V> enumType,
+			final Function<R, ? extends Collection<? extends V>> valueTransformation) {
+		Preconditions.checkNotNull(enumType, "enumType is null");
+		Preconditions.checkNotNull(valueTransformation, "valueTransformation is null");
+		return asCollector(new Foldleft<R, EnumSet<V>>() {
+
+			@Override
+			public EnumSet<V> apply(EnumSet<V> left, R value) {
+				return addAllUnique(left, valueTransformation.apply(value));
+			}
+		}, new Supplier<EnumSet<V>>() {
+
+			@Override
+			public EnumSet<V> get() {
+				return EnumSet.noneOf(enumType);
+			}
+		}, new BiFunction<EnumSet<V>, EnumSet<V>, EnumSet<V>>() {
+
+			@Override
+			public EnumSet<V> apply(EnumSet<V> left, EnumSet<V> right) {
+				return addAllUnique(left, right);
+			}
+		}, FoldCollector.Characteristics.UNORDERED);
+	}
+
+	private static <V, S extends Set<V>> S addAllUnique(S set, Collection<? extends V> values) {
+		for (V value : values) {
+			if (!set.add(value)) {
+				throw new IllegalArgumentException("colliding entry: " + value);
+			}
+		}
+		return set;
+	}
+
+	public static <T, S> Foldleft<T, TopN<T>> topNFold(final int n, final Function<? super T, S> sortTransformation,
+			final Comparator<? super S> comparator) {
+		Preconditions.checkArgument(n > 0, "n must be bigger then 0");
+		Preconditions.checkNotNull(sortTransformation, "sortTransformation is null");
+		Preconditions.checkNotNull(comparator, "comparator is null");
+		return new Foldleft<T, TopN<T>>() {
+
+			@Override
+			public TopN<T> apply(TopN<T> left, T value) {
+				TopN<T> topN = left != null
+						? left
+						: TopN.<T, S> of(n, sortTransformation, comparator);
+				return topN.add(value);
+			}
+		};
+	}
+
+	public static <T, S> FoldCollector<T, TopN<T>, TopN<T>> topNCollector(final int n, final Function<? super T, S> sortTransformation,
+			final Comparator<? super S> comparator) {
+		return asCollector(Folds.<T, S> topNFold(n, sortTransformation, comparator), new Supplier<TopN<T>>() {
+
+			@Override
+			public TopN<T> get() {
+				return TopN.<T, S> of(n, sortTransformation, comparator);
+			}
+		}, Folds.<T> topNCombiner());
+	}
+
+	public static <T> BiFunction<TopN<T>, TopN<T>, TopN<T>> topNCombiner() {
+		return new TopNCombiner<T>();
+	}
+
+	/**
+	 * folds chunks of the source in the pool, starting each chunk with a new left value, combines the chunk
+	 * results in source order and applies the finisher once
+	 */
+	public static <S, D> D foldLeft(List<? extends S> source, FoldCollector<? super S, ?, D> collector, ForkJoinPool pool) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(collector, "collector is null");
+		Preconditions.checkNotNull(pool, "pool is null");
+		return foldLeftCaptured(source, collector, pool);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <S, A, D> D foldLeftCaptured(List<? extends S> source, FoldCollector<? super S, A, D> collector, ForkJoinPool pool) {
+		List<? extends S> randomAccess = source instanceof RandomAccess
+				? source
+				: ImmutableList.copyOf(source);
+		int chunkSize = Math.max(1, randomAccess.size() / (pool.getParallelism() * 4));
+		A result = pool.invoke(new FoldTask<S, A>(randomAccess, collector, chunkSize, 0, randomAccess.size()));
+		return collector.characteristics().contains(FoldCollector.Characteristics.IDENTITY_FINISH)
+				? (D) result
+				: collector.finisher().apply(result);
+	}
+
+	static class TopNCombiner<T> implements BiFunction<TopN<T>, TopN<T>, TopN<T>> {
+
+		@Override
+		public TopN<T> apply(TopN<T> left, TopN<T> right) {
+			return left.merge(right);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static class FoldTask<S, D> extends RecursiveTask<D> {
+
+		private final List<? extends S> source;
+		private final FoldCollector<? super S, D, ?> collector;
+		private final int chunkSize;
+		private final int from;
+		private final int to;
+
+		public FoldTask(List<? extends S> source, FoldCollector<? super S, D, ?> collector, int chunkSize, int from, int to) {
+			this.source = source;
+			this.collector = collector;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected D compute() {
+			if (to - from <= chunkSize) {
+				return foldLeft(source.subList(from, to), collector.accumulator(), collector.supplier().get());
+			}
+			int middle = (from + to) >>> 1;
+			FoldTask<S, D> right = new FoldTask<S, D>(source, collector, chunkSize, middle, to);
+			right.fork();
+			D left = new FoldTask<S, D>(source, collector, chunkSize, from, middle).compute();
+			return collector.combiner().apply(left, right.join());
+		}
+	}
 	
 	interface CollectingFold<R, C extends Collection<? extends R>> extends Foldleft<Collection<? extends R>, C> {
 
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Map;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import de.flapdoodle.guava.functions.BiFunction;
+import de.flapdoodle.guava.maps.FluentMap;
+
+/**
+ * groups by (), (a), (a,b) [and (a,b,c)] in one traversal, key functions are called once per element and level
+ */
+public abstract class GroupingSets {
+
+	private GroupingSets() {
+		// no instance
+	}
+
+	/**
+	 * every element is folded into each level
+	 */
+	public static <T, A, B, V> Rollup2<A, B, V> rollup(Iterable<? extends T> source, Function<? super T, A> first,
+			Function<? super T, B> second, Foldleft<? super T, V> fold) {
+		return new Rollup2<A, B, V>(build(source, ImmutableList.<Function<? super T, ?>> of(first, second), fold, null));
+	}
+
+	/**
+	 * elements are only folded into the finest level, coarser levels combine the values of their children
+	 */
+	public static <T, A, B, V> Rollup2<A, B, V> rollup(Iterable<? extends T> source, Function<? super T, A> first,
+			Function<? super T, B> second, Foldleft<? super T, V> fold, BiFunction<V, V, V> combiner) {
+		Preconditions.checkNotNull(combiner, "combiner is null");
+		return new Rollup2<A, B, V>(build(source, ImmutableList.<Function<? super T, ?>> of(first, second), fold, combiner));
+	}
+
+	/**
+	 * every element is folded into each level
+	 */
+	public static <T, A, B, C, V> Rollup3<A, B, C, V> rollup(Iterable<? extends T> source, Function<? super T, A> first,
+			Function<? super T, B> second, Function<? super T, C> third, Foldleft<? super T, V> fold) {
+		return new Rollup3<A, B, C, V>(build(source, ImmutableList.<Function<? super T, ?>> of(first, second, third), fold, null));
+	}
+
+	/**
+	 * elements are only folded into the finest level, coarser levels combine the values of their children
+	 */
+	public static <T, A, B, C, V> Rollup3<A, B, C, V> rollup(Iterable<? extends T> source, Function<? super T, A> first,
+			Function<? super T, B> second, Function<? super T, C> third, Foldleft<? super T, V> fold, BiFunction<V, V, V> combiner) {
+		Preconditions.checkNotNull(combiner, "combiner is null");
+		return new Rollup3<A, B, C, V>(build(source, ImmutableList.<Function<? super T, ?>> of(first, second, third), fold,
+				combiner));
+	}
+
+	public static final class Rollup2<A, B, V> {
+
+		private final Node<V> root;
+
+		private Rollup2(Node<V> root) {
+			this.root = root;
+		}
+
+		/**
+		 * value over all elements, null if there was none
+		 */
+		public V total() {
+			return root.value;
+		}
+
+		public FluentMap<A, V> byFirst() {
+			return GroupingSets.<A, V> values(root);
+		}
+
+		public FluentMap<A, FluentMap<B, V>> byFirstAndSecond() {
+			return GroupingSets.<A, FluentMap<B, V>, V> mapped(root, new ToValues<B, V>());
+		}
+	}
+
+	public static final class Rollup3<A, B, C, V> {
+
+		private final Node<V> root;
+
+		private Rollup3(Node<V> root) {
+			this.root = root;
+		}
+
+		/**
+		 * value over all elements, null if there was none
+		 */
+		public V total() {
+			return root.value;
+		}
+
+		public FluentMap<A, V> byFirst() {
+			return GroupingSets.<A, V> values(root);
+		}
+
+		public FluentMap<A, FluentMap<B, V>> byFirstAndSecond() {
+			return GroupingSets.<A, FluentMap<B, V>, V> mapped(root, new ToValues<B, V>());
+		}
+
+		public FluentMap<A, FluentMap<B, FluentMap<C, V>>> byFirstSecondAndThird() {
+			return GroupingSets.<A, FluentMap<B, FluentMap<C, V>>, V> mapped(root, new ToNestedValues<B, C, V>());
+		}
+	}
+
+	private static <T, V> Node<V> build(Iterable<? extends T> source, ImmutableList<Function<? super T, ?>> keyTransformations,
+			Foldleft<? super T, V> fold, BiFunction<V, V, V> combiner) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(fold, "fold is null");
+		for (Function<? super T, ?> keyTransformation : keyTransformations) {
+			Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		}
+
+		boolean foldEveryLevel = combiner == null;
+		Node<V> root = new Node<V>();
+		for (T value : source) {
+			Node<V> node = root;
+			if (foldEveryLevel) {
+				node.value = fold.apply(node.value, value);
+			}
+			for (Function<? super T, ?> keyTransformation : keyTransformations) {
+				node = node.child(keyTransformation.apply(value));
+				if (foldEveryLevel) {
+					node.value = fold.apply(node.value, value);
+				}
+			}
+			if (!foldEveryLevel) {
+				node.value = fold.apply(node.value, value);
+			}
+		}
+		if (!foldEveryLevel) {
+			root.rollUp(combiner);
+		}
+		return root;
+	}
+
+	private static <K, V> FluentMap<K, V> values(Node<V> node) {
+		return GroupingSets.<K, V, V> mapped(node, new NodeValue<V>());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, D, V> FluentMap<K, D> mapped(Node<V> node, Function<Node<V>, D> transformation) {
+		Map<K, Node<V>> children = (Map<K, Node<V>>) (Map<?, Node<V>>) node.children;
+		return FluentMap.from(Maps.transformValues(children, transformation));
+	}
+
+	private static final class Node<V> {
+
+		final Map<Object, Node<V>> children = Maps.newHashMap();
+		V value;
+
+		Node<V> child(Object key) {
+			Node<V> ret = children.get(key);
+			if (ret == null) {
+				ret = new Node<V>();
+				children.put(key, ret);
+			}
+			return ret;
+		}
+
+		void rollUp(BiFunction<V, V, V> combiner) {
+			if (!children.isEmpty()) {
+				boolean first = true;
+				for (Node<V> child : children.values()) {
+					child.rollUp(combiner);
+					value = first
+							? child.value
+							: combiner.apply(value, child.value);
+					first = false;
+				}
+			}
+		}
+	}
+
+	private static final class NodeValue<V> implements Function<Node<V>, V> {
+
+		@Override
+		public V apply(Node<V> node) {
+			return node.value;
+		}
+	}
+
+	private static final class ToValues<K, V> implements Function<Node<V>, FluentMap<K, V>> {
+
+		@Override
+		public FluentMap<K, V> apply(Node<V> node) {
+			return GroupingSets.<K, V> values(node);
+		}
+	}
+
+	private static final class ToNestedValues<K, K2, V> implements Function<Node<V>, FluentMap<K, FluentMap<K2, V>>> {
+
+		@Override
+		public FluentMap<K, FluentMap<K2, V>> apply(Node<V> node) {
+			return GroupingSets.<K, FluentMap<K2, V>, V> mapped(node, new ToValues<K2, V>());
+		}
+	}
+}
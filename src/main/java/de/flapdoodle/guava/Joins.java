@@ -0,0 +1,357 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Sets;
+
+public abstract class Joins {
+
+	private Joins() {
+		// no instance
+	}
+
+	public static <L, R, K> ImmutableList<Pair<L, R>> join(JoinType type, Iterable<? extends L> left, Iterable<? extends R> right,
+			Function<? super L, K> leftKey, Function<? super R, K> rightKey) {
+		Preconditions.checkNotNull(type, "type is null");
+		Preconditions.checkNotNull(left, "left is null");
+		Preconditions.checkNotNull(right, "right is null");
+		Preconditions.checkNotNull(leftKey, "leftKey is null");
+		Preconditions.checkNotNull(rightKey, "rightKey is null");
+
+		boolean buildOnLeft = left instanceof Collection
+				&& (!(right instanceof Collection) || ((Collection<?>) left).size() < ((Collection<?>) right).size());
+		return buildOnLeft
+				? probeRight(type, left, right, leftKey, rightKey)
+				: probeLeft(type, left, right, leftKey, rightKey);
+	}
+
+	/**
+	 * both sides must be sorted by their key, only the right elements of the current key are buffered
+	 */
+	public static <L, R, K> Iterable<Pair<L, R>> sortedJoin(final JoinType type, final Iterable<? extends L> left,
+			final Iterable<? extends R> right, final Function<? super L, K> leftKey, final Function<? super R, K> rightKey,
+			final Comparator<? super K> comparator) {
+		Preconditions.checkNotNull(type, "type is null");
+		Preconditions.checkNotNull(left, "left is null");
+		Preconditions.checkNotNull(right, "right is null");
+		Preconditions.checkNotNull(leftKey, "leftKey is null");
+		Preconditions.checkNotNull(rightKey, "rightKey is null");
+		Preconditions.checkNotNull(comparator, "comparator is null");
+
+		return new Iterable<Pair<L, R>>() {
+
+			@Override
+			public Iterator<Pair<L, R>> iterator() {
+				return new SortMergeJoinIterator<L, R, K>(type, Iterators.peekingIterator(left.iterator()),
+						Iterators.peekingIterator(right.iterator()), leftKey, rightKey, comparator);
+			}
+
+			@Override
+			public String toString() {
+				return Iterators.toString(iterator());
+			}
+		};
+	}
+
+	/**
+	 * collects the keys of batchSize source elements and calls the loader once per batch with the distinct keys,
+	 * elements without loaded value are paired with null
+	 */
+	public static <T, K, V> Iterable<Pair<T, V>> batchedLookup(final Iterable<? extends T> source, final Function<? super T, K> key,
+			final Function<? super Set<K>, ? extends Map<K, ? extends V>> loader, final int batchSize) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(key, "key is null");
+		Preconditions.checkNotNull(loader, "loader is null");
+		Preconditions.checkArgument(batchSize > 0, "batchSize must be bigger then 0");
+
+		return new Iterable<Pair<T, V>>() {
+
+			@Override
+			public Iterator<Pair<T, V>> iterator() {
+				return Iterators.concat(Iterators.transform(Iterators.partition(source.iterator(), batchSize),
+						new Function<List<? extends T>, Iterator<Pair<T, V>>>() {
+
+							@Override
+							public Iterator<Pair<T, V>> apply(List<? extends T> batch) {
+								return lookup(batch, key, loader).iterator();
+							}
+						}));
+			}
+
+			@Override
+			public String toString() {
+				return Iterators.toString(iterator());
+			}
+		};
+	}
+
+	private static <T, K, V> ImmutableList<Pair<T, V>> lookup(List<? extends T> batch, Function<? super T, K> key,
+			Function<? super Set<K>, ? extends Map<K, ? extends V>> loader) {
+		List<K> keys = Lists.newArrayListWithCapacity(batch.size());
+		for (T value : batch) {
+			keys.add(key.apply(value));
+		}
+		Map<K, ? extends V> loaded = loader.apply(Collections.unmodifiableSet(Sets.newLinkedHashSet(keys)));
+		Preconditions.checkNotNull(loaded, "loader returned null for %s", keys);
+
+		ImmutableList.Builder<Pair<T, V>> builder = ImmutableList.builder();
+		for (int i = 0; i < batch.size(); i++) {
+			builder.add(Pair.<T, V> of(batch.get(i), loaded.get(keys.get(i))));
+		}
+		return builder.build();
+	}
+
+	private static <T, K> Map<K, Bucket> indexOf(List<? extends T> values, Function<? super T, K> key) {
+		Map<K, Bucket> ret = Maps.newHashMap();
+		for (int i = 0; i < values.size(); i++) {
+			K k = key.apply(values.get(i));
+			Bucket bucket = ret.get(k);
+			if (bucket == null) {
+				bucket = new Bucket();
+				ret.put(k, bucket);
+			}
+			bucket.add(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * only the right side is copied and indexed, left elements are streamed and their matches emitted directly
+	 */
+	private static <L, R, K> ImmutableList<Pair<L, R>> probeLeft(JoinType type, Iterable<? extends L> left,
+			Iterable<? extends R> right, Function<? super L, K> leftKey, Function<? super R, K> rightKey) {
+		ImmutableList<? extends R> rightValues = ImmutableList.copyOf(right);
+		Map<K, Bucket> rightIndex = indexOf(rightValues, rightKey);
+		BitSet matched = new BitSet(rightValues.size());
+
+		ImmutableList.Builder<Pair<L, R>> builder = ImmutableList.builder();
+		for (L l : left) {
+			Bucket bucket = rightIndex.get(leftKey.apply(l));
+			if (bucket == null) {
+				if (type != JoinType.INNER) {
+					builder.add(Pair.<L, R> of(l, null));
+				}
+			} else {
+				for (int i = 0; i < bucket.size; i++) {
+					int index = bucket.indices[i];
+					builder.add(Pair.<L, R> of(l, rightValues.get(index)));
+					matched.set(index);
+				}
+			}
+		}
+		if (type == JoinType.FULL_OUTER) {
+			for (int index = matched.nextClearBit(0); index < rightValues.size(); index = matched.nextClearBit(index + 1)) {
+				builder.add(Pair.<L, R> of(null, rightValues.get(index)));
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * only the left side is copied and indexed, right elements are streamed, matching right elements are
+	 * kept until they can be emitted in left order (a stable counting sort by left index)
+	 */
+	@SuppressWarnings("unchecked")
+	private static <L, R, K> ImmutableList<Pair<L, R>> probeRight(JoinType type, Iterable<? extends L> left,
+			Iterable<? extends R> right, Function<? super L, K> leftKey, Function<? super R, K> rightKey) {
+		ImmutableList<? extends L> leftValues = ImmutableList.copyOf(left);
+		Map<K, Bucket> leftIndex = indexOf(leftValues, leftKey);
+
+		Bucket matchLeft = new Bucket();
+		Object[] matchRight = new Object[8];
+		List<R> unmatchedRight = Lists.newArrayList();
+		for (R r : right) {
+			Bucket bucket = leftIndex.get(rightKey.apply(r));
+			if (bucket == null) {
+				if (type == JoinType.FULL_OUTER) {
+					unmatchedRight.add(r);
+				}
+			} else {
+				for (int i = 0; i < bucket.size; i++) {
+					if (matchLeft.size == matchRight.length) {
+						matchRight = Arrays.copyOf(matchRight, matchRight.length * 2);
+					}
+					matchRight[matchLeft.size] = r;
+					matchLeft.add(bucket.indices[i]);
+				}
+			}
+		}
+
+		int[] start = new int[leftValues.size() + 1];
+		for (int i = 0; i < matchLeft.size; i++) {
+			start[matchLeft.indices[i] + 1]++;
+		}
+		for (int i = 0; i < leftValues.size(); i++) {
+			start[i + 1] += start[i];
+		}
+		Object[] ordered = new Object[matchLeft.size];
+		int[] next = Arrays.copyOf(start, leftValues.size());
+		for (int i = 0; i < matchLeft.size; i++) {
+			ordered[next[matchLeft.indices[i]]++] = matchRight[i];
+		}
+
+		ImmutableList.Builder<Pair<L, R>> builder = ImmutableList.builder();
+		for (int i = 0; i < leftValues.size(); i++) {
+			L l = leftValues.get(i);
+			if (start[i] == start[i + 1]) {
+				if (type != JoinType.INNER) {
+					builder.add(Pair.<L, R> of(l, null));
+				}
+			} else {
+				for (int j = start[i]; j < start[i + 1]; j++) {
+					builder.add(Pair.<L, R> of(l, (R) ordered[j]));
+				}
+			}
+		}
+		for (R r : unmatchedRight) {
+			builder.add(Pair.<L, R> of(null, r));
+		}
+		return builder.build();
+	}
+
+	private static final class Bucket {
+
+		int[] indices = new int[1];
+		int size = 0;
+
+		void add(int index) {
+			if (size == indices.length) {
+				indices = Arrays.copyOf(indices, size * 2);
+			}
+			indices[size++] = index;
+		}
+	}
+
+	private static final class SortMergeJoinIterator<L, R, K> extends AbstractIterator<Pair<L, R>> {
+
+		private final JoinType type;
+		private final PeekingIterator<? extends L> left;
+		private final PeekingIterator<? extends R> right;
+		private final Function<? super L, K> leftKey;
+		private final Function<? super R, K> rightKey;
+		private final Comparator<? super K> comparator;
+
+		private final ArrayDeque<Pair<L, R>> pending = new ArrayDeque<Pair<L, R>>();
+		private final List<R> group = Lists.newArrayList();
+		private K groupKey;
+		private boolean hasGroupKey = false;
+		private boolean groupMatched;
+		private K lastLeftKey;
+		private boolean hasLastLeftKey = false;
+
+		SortMergeJoinIterator(JoinType type, PeekingIterator<? extends L> left, PeekingIterator<? extends R> right,
+				Function<? super L, K> leftKey, Function<? super R, K> rightKey, Comparator<? super K> comparator) {
+			this.type = type;
+			this.left = left;
+			this.right = right;
+			this.leftKey = leftKey;
+			this.rightKey = rightKey;
+			this.comparator = comparator;
+		}
+
+		@Override
+		protected Pair<L, R> computeNext() {
+			while (pending.isEmpty()) {
+				if (group.isEmpty() && right.hasNext()) {
+					nextGroup();
+				}
+				if (!left.hasNext()) {
+					if (group.isEmpty()) {
+						return endOfData();
+					}
+					dropGroup();
+				} else if (group.isEmpty()) {
+					L l = nextLeft();
+					if (type != JoinType.INNER) {
+						pending.add(Pair.<L, R> of(l, null));
+					}
+				} else {
+					int compared = comparator.compare(leftKey.apply(left.peek()), groupKey);
+					if (compared < 0) {
+						L l = nextLeft();
+						if (type != JoinType.INNER) {
+							pending.add(Pair.<L, R> of(l, null));
+						}
+					} else if (compared > 0) {
+						dropGroup();
+					} else {
+						L l = nextLeft();
+						for (R r : group) {
+							pending.add(Pair.<L, R> of(l, r));
+						}
+						groupMatched = true;
+					}
+				}
+			}
+			return pending.poll();
+		}
+
+		private L nextLeft() {
+			L l = left.next();
+			K key = leftKey.apply(l);
+			if (hasLastLeftKey) {
+				Preconditions.checkArgument(comparator.compare(lastLeftKey, key) <= 0, "left is not sorted: %s > %s", lastLeftKey, key);
+			}
+			lastLeftKey = key;
+			hasLastLeftKey = true;
+			return l;
+		}
+
+		private void nextGroup() {
+			R first = right.next();
+			K key = rightKey.apply(first);
+			if (hasGroupKey) {
+				Preconditions.checkArgument(comparator.compare(groupKey, key) < 0, "right is not sorted: %s > %s", groupKey, key);
+			}
+			groupKey = key;
+			hasGroupKey = true;
+			groupMatched = false;
+			group.add(first);
+			while (right.hasNext() && comparator.compare(rightKey.apply(right.peek()), key) == 0) {
+				group.add(right.next());
+			}
+		}
+
+		private void dropGroup() {
+			if (!groupMatched && type == JoinType.FULL_OUTER) {
+				for (R r : group) {
+					pending.add(Pair.<L, R> of(null, r));
+				}
+			}
+			group.clear();
+		}
+	}
+}
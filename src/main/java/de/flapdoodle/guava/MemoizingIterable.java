@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * pulls each element only once from the source, concurrent first readers share the same source iterator,
+ * after the source is exhausted all iterators replay from an array of the exact size
+ *
+ * the source is pulled outside of the lock by one reader at a time, a failure of the source is kept and thrown
+ * again by every iterator which reaches the same position
+ */
+final class MemoizingIterable<T> implements Iterable<T> {
+
+	private final Object lock = new Object();
+
+	private Iterable<? extends T> source;
+	private Iterator<? extends T> sourceIterator;
+	private Object[] buffer = new Object[16];
+	private int size = 0;
+	private Thread puller;
+	private RuntimeException failure;
+
+	private volatile Object[] values;
+
+	MemoizingIterable(Iterable<? extends T> source) {
+		this.source = source;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		Object[] all = values;
+		if (all != null) {
+			@SuppressWarnings("unchecked")
+			Iterator<T> ret = (Iterator<T>) Iterators.forArray(all);
+			return ret;
+		}
+		return new MemoizingIterator();
+	}
+
+	@Override
+	public String toString() {
+		return Iterators.toString(iterator());
+	}
+
+	private boolean isAvailable(int index) {
+		Object[] all = values;
+		if (all != null) {
+			return index < all.length;
+		}
+		for (;;) {
+			synchronized (lock) {
+				if (values != null) {
+					return index < values.length;
+				}
+				if (index < size) {
+					return true;
+				}
+				if (failure != null) {
+					throw failure;
+				}
+				if (puller != null) {
+					Preconditions.checkState(puller != Thread.currentThread(), "source iterates its own memoization");
+					awaitPull();
+					continue;
+				}
+				puller = Thread.currentThread();
+			}
+			pull();
+		}
+	}
+
+	/**
+	 * only the thread which set puller gets here, so source and sourceIterator are not shared while it runs
+	 */
+	private void pull() {
+		boolean pulled = false;
+		boolean hasNext = false;
+		Object value = null;
+		RuntimeException failed = null;
+		try {
+			if (sourceIterator == null) {
+				sourceIterator = source.iterator();
+			}
+			hasNext = sourceIterator.hasNext();
+			if (hasNext) {
+				value = sourceIterator.next();
+			}
+			pulled = true;
+		} catch (RuntimeException rx) {
+			failed = rx;
+			pulled = true;
+		} finally {
+			synchronized (lock) {
+				if (pulled) {
+					if (failed != null) {
+						failure = failed;
+						sourceIterator = null;
+						source = null;
+					} else if (hasNext) {
+						if (size == buffer.length) {
+							buffer = Arrays.copyOf(buffer, size * 2);
+						}
+						buffer[size++] = value;
+					} else {
+						values = Arrays.copyOf(buffer, size);
+						buffer = null;
+						sourceIterator = null;
+						source = null;
+					}
+				}
+				puller = null;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private void awaitPull() {
+		try {
+			lock.wait();
+		} catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted", ix);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private T get(int index) {
+		Object[] all = values;
+		if (all != null) {
+			return (T) all[index];
+		}
+		synchronized (lock) {
+			return (T) (values != null
+					? values[index]
+					: buffer[index]);
+		}
+	}
+
+	private final class MemoizingIterator extends UnmodifiableIterator<T> {
+
+		private int index = 0;
+
+		@Override
+		public boolean hasNext() {
+			return isAvailable(index);
+		}
+
+		@Override
+		public T next() {
+			if (!isAvailable(index)) {
+				throw new NoSuchElementException();
+			}
+			return get(index++);
+		}
+	}
+}
@@ -16,13 +16,22 @@
  */
 package de.flapdoodle.guava;
 
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
 import com.google.common.base.Equivalence;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.PeekingIterator;
 
 
 public abstract class Merger {
@@ -32,26 +41,106 @@ public abstract class Merger {
 		// no instance
 	}
 	
+	/**
+	 * each left element is folded with all right elements it matches (in right order), a left element without match
+	 * is kept as it is, right elements without any match follow at the end; matcher.hash must be consistent with
+	 * matcher.equivalent, because the right side is hashed once
+	 */
 	public static <T> ImmutableList<T> merge(Iterable<? extends T> left, Iterable<? extends T> right,Equivalence<? super T> matcher,Foldleft<? super T, T> fold) {
+		return merge(left, right, new WrapTransformation<T>(matcher), fold);
+	}
+
+	/**
+	 * same as merge(left, right, matcher, fold), elements match if their keys are equal
+	 */
+	public static <T> ImmutableList<T> merge(Iterable<? extends T> left, Iterable<? extends T> right,Function<? super T, ?> keyTransformation,Foldleft<? super T, T> fold) {
+		Preconditions.checkNotNull(left, "left is null");
+		Preconditions.checkNotNull(right, "right is null");
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkNotNull(fold, "fold is null");
+
+		ImmutableList<T> rightList = ImmutableList.copyOf(right);
+		Object[] rightKeys = new Object[rightList.size()];
+		ListMultimap<Object, T> notMerged = ArrayListMultimap.create();
+		for (int i = 0; i < rightKeys.length; i++) {
+			T r = rightList.get(i);
+			rightKeys[i] = keyTransformation.apply(r);
+			notMerged.put(rightKeys[i], r);
+		}
+
 		ImmutableList.Builder<T> builder=ImmutableList.builder();
-		Iterable<? extends T> notMerged=right;
 		for (T l : left) {
-			Iterable<? extends T> matching = Iterables.filter(notMerged, matcher.equivalentTo(l));
-			notMerged = Iterables.filter(notMerged, Predicates.not(matcher.equivalentTo(l)));
-			
-			boolean noMatching=true;
-			for (T r : matching) {
-				builder.add(fold.apply(l, r));
-				noMatching=false;
-			}
-			if (noMatching) {
+			List<T> matching = notMerged.removeAll(keyTransformation.apply(l));
+			if (matching.isEmpty()) {
 				builder.add(l);
+			} else {
+				for (T r : matching) {
+					builder.add(fold.apply(l, r));
+				}
+			}
+		}
+		for (int i = 0; i < rightKeys.length; i++) {
+			if (notMerged.containsKey(rightKeys[i])) {
+				builder.add(rightList.get(i));
 			}
 		}
-		builder.addAll(notMerged);
 		return builder.build();
 	}
 	
+	/**
+	 * same matching and fold semantics as merge(left, right, matcher, fold) for inputs sorted by the comparator, but
+	 * lazy and in sorted order, keeps only one element of each side (fails with IllegalArgumentException if a side is
+	 * not sorted)
+	 */
+	public static <T> Iterable<T> mergeSorted(final Iterable<? extends T> left, final Iterable<? extends T> right,
+			final Comparator<? super T> comparator, final Foldleft<? super T, T> fold) {
+		Preconditions.checkNotNull(left, "left is null");
+		Preconditions.checkNotNull(right, "right is null");
+		Preconditions.checkNotNull(comparator, "comparator is null");
+		Preconditions.checkNotNull(fold, "fold is null");
+		return new Iterable<T>() {
+
+			@Override
+			public Iterator<T> iterator() {
+				return new SortedMergeIterator<T>(left.iterator(), right.iterator(), comparator, fold);
+			}
+
+			@Override
+			public String toString() {
+				return Iterators.toString(iterator());
+			}
+		};
+	}
+
+	/**
+	 * lazy k-way merge of sources sorted by the comparator, equal elements keep the source order, keeps one element
+	 * per source in a heap
+	 */
+	public static <T> Iterable<T> mergeAllSorted(Iterable<? extends Iterable<? extends T>> sources, Comparator<? super T> comparator) {
+		return mergeAllSorted(sources, comparator, null);
+	}
+
+	/**
+	 * same as mergeAllSorted(sources, comparator), but all elements equal to the first of a run are folded into it
+	 */
+	public static <T> Iterable<T> mergeAllSorted(final Iterable<? extends Iterable<? extends T>> sources,
+			final Comparator<? super T> comparator, final Foldleft<? super T, T> fold) {
+		Preconditions.checkNotNull(sources, "sources is null");
+		Preconditions.checkNotNull(comparator, "comparator is null");
+		return new Iterable<T>() {
+
+			@Override
+			public Iterator<T> iterator() {
+				return new KWayMergeIterator<T>(sources, comparator, fold);
+			}
+
+			@Override
+			public String toString() {
+				return Iterators.toString(iterator());
+			}
+		};
+	}
+
 	public static <T> ImmutableList<T> remove(Iterable<? extends T> src, Predicate<? super T> matcher, Function<T, Optional<T>> transformation) {
 		ImmutableList.Builder<T> builder=ImmutableList.builder();
 		for (T s : src) {
@@ -63,4 +152,165 @@ public abstract class Merger {
 		}
 		return builder.build();
 	}
+
+	static final class WrapTransformation<T> implements Function<T, Object> {
+
+		private final Equivalence<? super T> matcher;
+
+		WrapTransformation(Equivalence<? super T> matcher) {
+			this.matcher = Preconditions.checkNotNull(matcher, "matcher is null");
+		}
+
+		@Override
+		public Object apply(T input) {
+			return matcher.wrap(input);
+		}
+	}
+
+	static final class SortedMergeIterator<T> extends AbstractIterator<T> {
+
+		private final PeekingIterator<? extends T> left;
+		private final PeekingIterator<? extends T> right;
+		private final Comparator<? super T> comparator;
+		private final Foldleft<? super T, T> fold;
+
+		private boolean hasLastLeft = false;
+		private T lastLeft;
+		private boolean hasLastRight = false;
+		private T lastRight;
+		private boolean matching = false;
+
+		SortedMergeIterator(Iterator<? extends T> left, Iterator<? extends T> right, Comparator<? super T> comparator,
+				Foldleft<? super T, T> fold) {
+			this.left = Iterators.peekingIterator(left);
+			this.right = Iterators.peekingIterator(right);
+			this.comparator = comparator;
+			this.fold = fold;
+		}
+
+		@Override
+		protected T computeNext() {
+			if (matching) {
+				if (right.hasNext() && comparator.compare(lastLeft, right.peek()) == 0) {
+					return fold.apply(lastLeft, nextRight());
+				}
+				matching = false;
+			}
+			if (!left.hasNext()) {
+				return right.hasNext()
+						? nextRight()
+						: endOfData();
+			}
+			if (!right.hasNext()) {
+				return nextLeft();
+			}
+			int compared = comparator.compare(left.peek(), right.peek());
+			if (compared < 0) {
+				return nextLeft();
+			}
+			if (compared > 0) {
+				return nextRight();
+			}
+			T l = nextLeft();
+			matching = true;
+			return fold.apply(l, nextRight());
+		}
+
+		private T nextLeft() {
+			T next = left.next();
+			if (hasLastLeft) {
+				Preconditions.checkArgument(comparator.compare(lastLeft, next) <= 0, "left is not sorted: %s > %s", lastLeft, next);
+			}
+			hasLastLeft = true;
+			lastLeft = next;
+			return next;
+		}
+
+		private T nextRight() {
+			T next = right.next();
+			if (hasLastRight) {
+				Preconditions.checkArgument(comparator.compare(lastRight, next) <= 0, "right is not sorted: %s > %s", lastRight, next);
+			}
+			hasLastRight = true;
+			lastRight = next;
+			return next;
+		}
+	}
+
+	static final class KWayMergeIterator<T> extends AbstractIterator<T> {
+
+		private final Comparator<? super T> comparator;
+		private final Foldleft<? super T, T> fold;
+		private final PriorityQueue<Head<T>> heap;
+
+		KWayMergeIterator(Iterable<? extends Iterable<? extends T>> sources, final Comparator<? super T> comparator,
+				Foldleft<? super T, T> fold) {
+			this.comparator = comparator;
+			this.fold = fold;
+			this.heap = new PriorityQueue<Head<T>>(11, new Comparator<Head<T>>() {
+
+				@Override
+				public int compare(Head<T> a, Head<T> b) {
+					int ret = comparator.compare(a.value, b.value);
+					return ret != 0
+							? ret
+							: (a.source < b.source
+									? -1
+									: (a.source == b.source
+											? 0
+											: 1));
+				}
+			});
+			int source = 0;
+			for (Iterable<? extends T> iterable : sources) {
+				Iterator<? extends T> iterator = iterable.iterator();
+				if (iterator.hasNext()) {
+					heap.add(new Head<T>(source, iterator, iterator.next()));
+				}
+				source++;
+			}
+		}
+
+		@Override
+		protected T computeNext() {
+			if (heap.isEmpty()) {
+				return endOfData();
+			}
+			T first = poll();
+			if (fold == null) {
+				return first;
+			}
+			T ret = first;
+			while (!heap.isEmpty() && comparator.compare(first, heap.peek().value) == 0) {
+				ret = fold.apply(ret, poll());
+			}
+			return ret;
+		}
+
+		private T poll() {
+			Head<T> head = heap.poll();
+			T ret = head.value;
+			if (head.iterator.hasNext()) {
+				T next = head.iterator.next();
+				Preconditions.checkArgument(comparator.compare(ret, next) <= 0, "source %s is not sorted: %s > %s", head.source, ret,
+						next);
+				head.value = next;
+				heap.add(head);
+			}
+			return ret;
+		}
+	}
+
+	private static final class Head<T> {
+
+		final int source;
+		final Iterator<? extends T> iterator;
+		T value;
+
+		Head(int source, Iterator<? extends T> iterator, T value) {
+			this.source = source;
+			this.iterator = iterator;
+			this.value = value;
+		}
+	}
 }
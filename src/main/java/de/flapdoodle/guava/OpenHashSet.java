@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+/**
+ * open addressing set with linear probing, stores the spread hash next to each key so probing
+ * only calls equals on hash matches
+ */
+final class OpenHashSet {
+
+	private static final Object NULL = new Object();
+
+	private int[] hashes;
+	private Object[] keys;
+	private int mask;
+	private int size = 0;
+
+	OpenHashSet(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+		this.hashes = new int[capacity];
+		this.keys = new Object[capacity];
+		this.mask = capacity - 1;
+	}
+
+	static int hash(Object key) {
+		int h = key == null
+				? 0
+				: key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	boolean add(Object key) {
+		return add(key, hash(key));
+	}
+
+	boolean add(Object key, int hash) {
+		Object value = key == null
+				? NULL
+				: key;
+		int index = hash & mask;
+		for (;;) {
+			Object current = keys[index];
+			if (current == null) {
+				keys[index] = value;
+				hashes[index] = hash;
+				if (++size * 2 > keys.length) {
+					resize();
+				}
+				return true;
+			}
+			if (hashes[index] == hash && (current == value || current.equals(value))) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void resize() {
+		int[] oldHashes = hashes;
+		Object[] oldKeys = keys;
+		hashes = new int[oldKeys.length * 2];
+		keys = new Object[oldKeys.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int index = oldHashes[i] & mask;
+				while (keys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				hashes[index] = oldHashes[i];
+			}
+		}
+	}
+
+	/**
+	 * open addressing set of primitive long keys, 0 is tracked outside of the table because it marks free slots
+	 */
+	static final class OfLong {
+
+		private long[] keys;
+		private int mask;
+		private int size = 0;
+		private boolean containsZero = false;
+
+		OfLong(int expectedSize) {
+			int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+			this.keys = new long[capacity];
+			this.mask = capacity - 1;
+		}
+
+		boolean add(long key) {
+			if (key == 0) {
+				boolean ret = !containsZero;
+				containsZero = true;
+				return ret;
+			}
+			int index = spread(key) & mask;
+			for (;;) {
+				long current = keys[index];
+				if (current == 0) {
+					keys[index] = key;
+					if (++size * 2 > keys.length) {
+						resize();
+					}
+					return true;
+				}
+				if (current == key) {
+					return false;
+				}
+				index = (index + 1) & mask;
+			}
+		}
+
+		private static int spread(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+
+		private void resize() {
+			long[] old = keys;
+			keys = new long[old.length * 2];
+			mask = keys.length - 1;
+			for (long key : old) {
+				if (key != 0) {
+					int index = spread(key) & mask;
+					while (keys[index] != 0) {
+						index = (index + 1) & mask;
+					}
+					keys[index] = key;
+				}
+			}
+		}
+	}
+
+	/**
+	 * fixed size table of key hashes, a slot keeps only the last hash which was mapped to it:
+	 * duplicates whose slot was taken over in between are seen again, different keys with the same hash are dropped
+	 */
+	static final class Approximate {
+
+		private final int[] hashes;
+		private final int mask;
+
+		Approximate(int maxKeys) {
+			// never more slots than maxKeys
+			int capacity = Integer.highestOneBit(Math.max(1, maxKeys));
+			this.hashes = new int[capacity];
+			this.mask = capacity - 1;
+		}
+
+		boolean add(Object key) {
+			int hash = hash(key) | 1;
+			int index = (hash >>> 1) & mask;
+			if (hashes[index] == hash) {
+				return false;
+			}
+			hashes[index] = hash;
+			return true;
+		}
+	}
+}
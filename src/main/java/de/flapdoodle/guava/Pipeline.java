@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * records map, filter and flatmap stages and runs them as one push based loop into a fold or list,
+ * without any view or iterator between the stages
+ */
+public final class Pipeline<S, T> {
+
+	private final ImmutableList<Stage> stages;
+
+	private Pipeline(ImmutableList<Stage> stages) {
+		this.stages = stages;
+	}
+
+	public static <S> Pipeline<S, S> start() {
+		return new Pipeline<S, S>(ImmutableList.<Stage> of());
+	}
+
+	public <D> Pipeline<S, D> map(final Function<? super T, ? extends D> transformation) {
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		return with(new Stage() {
+
+			@Override
+			Sink wrap(final Sink downstream) {
+				return new Sink() {
+
+					@SuppressWarnings("unchecked")
+					@Override
+					void accept(Object value) {
+						downstream.accept(transformation.apply((T) value));
+					}
+				};
+			}
+		});
+	}
+
+	public Pipeline<S, T> filter(final Predicate<? super T> filter) {
+		Preconditions.checkNotNull(filter, "filter is null");
+		return with(new Stage() {
+
+			@Override
+			Sink wrap(final Sink downstream) {
+				return new Sink() {
+
+					@SuppressWarnings("unchecked")
+					@Override
+					void accept(Object value) {
+						if (filter.apply((T) value)) {
+							downstream.accept(value);
+						}
+					}
+				};
+			}
+		});
+	}
+
+	public <D> Pipeline<S, D> flatmap(final Function<? super T, ? extends Iterable<? extends D>> transformation) {
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		return with(new Stage() {
+
+			@Override
+			Sink wrap(final Sink downstream) {
+				return new Sink() {
+
+					@SuppressWarnings("unchecked")
+					@Override
+					void accept(Object value) {
+						pushAll(transformation.apply((T) value), downstream);
+					}
+				};
+			}
+		});
+	}
+
+	public <L> L foldLeft(Iterable<? extends S> source, Foldleft<? super T, L> fold, L leftValue) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(fold, "fold is null");
+		FoldSink<T, L> sink = new FoldSink<T, L>(fold, leftValue);
+		pushAll(source, chain(sink));
+		return sink.left;
+	}
+
+	public ImmutableList<T> toList(Iterable<? extends S> source) {
+		Preconditions.checkNotNull(source, "source is null");
+		final ImmutableList.Builder<T> builder = ImmutableList.builder();
+		pushAll(source, chain(new Sink() {
+
+			@SuppressWarnings("unchecked")
+			@Override
+			void accept(Object value) {
+				builder.add((T) value);
+			}
+		}));
+		return builder.build();
+	}
+
+	private <D> Pipeline<S, D> with(Stage stage) {
+		return new Pipeline<S, D>(ImmutableList.<Stage> builder().addAll(stages).add(stage).build());
+	}
+
+	private Sink chain(Sink terminal) {
+		Sink ret = terminal;
+		for (Stage stage : stages.reverse()) {
+			ret = stage.wrap(ret);
+		}
+		return ret;
+	}
+
+	private static void pushAll(Iterable<?> source, Sink sink) {
+		if (source instanceof List && source instanceof RandomAccess) {
+			List<?> asList = (List<?>) source;
+			for (int i = 0, size = asList.size(); i < size; i++) {
+				sink.accept(asList.get(i));
+			}
+		} else {
+			for (Object value : source) {
+				sink.accept(value);
+			}
+		}
+	}
+
+	abstract static class Stage {
+
+		abstract Sink wrap(Sink downstream);
+	}
+
+	abstract static class Sink {
+
+		abstract void accept(Object value);
+	}
+
+	static final class FoldSink<T, L> extends Sink {
+
+		private final Foldleft<? super T, L> fold;
+		private L left;
+
+		FoldSink(Foldleft<? super T, L> fold, L left) {
+			this.fold = fold;
+			this.left = left;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		void accept(Object value) {
+			left = fold.apply(left, (T) value);
+		}
+	}
+}
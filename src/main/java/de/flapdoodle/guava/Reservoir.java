@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * uniform sample of at most k elements out of all elements added so far
+ */
+public final class Reservoir<T> {
+
+	private final int k;
+	private final Random random;
+	private final Object[] sample;
+	private int size = 0;
+	private long seen = 0;
+
+	public Reservoir(int k, Random random) {
+		Preconditions.checkArgument(k > 0, "k must be bigger then 0");
+		this.k = k;
+		this.random = Preconditions.checkNotNull(random, "random is null");
+		this.sample = new Object[k];
+	}
+
+	public Reservoir<T> add(T value) {
+		seen++;
+		if (size < k) {
+			sample[size++] = value;
+		} else {
+			long index = (long) (random.nextDouble() * seen);
+			if (index < k) {
+				sample[(int) index] = value;
+			}
+		}
+		return this;
+	}
+
+	public long seen() {
+		return seen;
+	}
+
+	public List<T> sample() {
+		@SuppressWarnings("unchecked")
+		List<T> ret = (List<T>) Arrays.asList(Arrays.copyOf(sample, size));
+		return Collections.unmodifiableList(ret);
+	}
+
+	/**
+	 * uniform sample over both sources: each pick takes a random remaining element of one side,
+	 * with a probability proportional to the elements this side has seen and not given yet
+	 */
+	public Reservoir<T> merge(Reservoir<? extends T> other) {
+		Preconditions.checkNotNull(other, "other is null");
+		Preconditions.checkArgument(other.k == k, "k mismatch: %s != %s", k, other.k);
+
+		Reservoir<T> ret = new Reservoir<T>(k, random);
+		ret.seen = seen + other.seen;
+
+		Object[] left = Arrays.copyOf(sample, size);
+		Object[] right = Arrays.copyOf(other.sample, other.size);
+		int leftSize = left.length;
+		int rightSize = right.length;
+		long leftRemaining = seen;
+		long rightRemaining = other.seen;
+
+		while (ret.size < k && (leftRemaining + rightRemaining) > 0) {
+			boolean fromLeft = (long) (random.nextDouble() * (leftRemaining + rightRemaining)) < leftRemaining;
+			if (fromLeft) {
+				int index = random.nextInt(leftSize);
+				ret.sample[ret.size++] = left[index];
+				left[index] = left[--leftSize];
+				leftRemaining--;
+			} else {
+				int index = random.nextInt(rightSize);
+				ret.sample[ret.size++] = right[index];
+				right[index] = right[--rightSize];
+				rightRemaining--;
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		return "Reservoir[seen=" + seen + ", sample=" + sample() + "]";
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+
+/**
+ * single pass sampling with O(k) memory, results of parallel chunks can be merged
+ */
+public abstract class Sampling {
+
+	private Sampling() {
+		// no instance
+	}
+
+	public static <T> Reservoir<T> reservoir(Iterable<? extends T> source, int k, Random random) {
+		return Folds.foldLeft(source, Sampling.<T> reservoirFold(k, random), new Reservoir<T>(k, random));
+	}
+
+	public static <T> WeightedReservoir<T> weighted(Iterable<? extends T> source, Function<? super T, ? extends Number> weight, int k,
+			Random random) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(weight, "weight is null");
+		WeightedReservoir<T> ret = new WeightedReservoir<T>(k, random);
+		for (T value : source) {
+			ret.add(value, weight.apply(value).doubleValue());
+		}
+		return ret;
+	}
+
+	public static <K, T> Map<K, Reservoir<T>> stratified(Iterable<T> source, Function<? super T, K> keyTransformation, int k,
+			Random random) {
+		return Transformations.map(source, keyTransformation, Sampling.<T> reservoirFold(k, random));
+	}
+
+	public static <T> Foldleft<T, Reservoir<T>> reservoirFold(final int k, final Random random) {
+		Preconditions.checkArgument(k > 0, "k must be bigger then 0");
+		Preconditions.checkNotNull(random, "random is null");
+		return new Foldleft<T, Reservoir<T>>() {
+
+			@Override
+			public Reservoir<T> apply(Reservoir<T> left, T value) {
+				Reservoir<T> reservoir = left != null
+						? left
+						: new Reservoir<T>(k, random);
+				return reservoir.add(value);
+			}
+		};
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * the n biggest elements by a sort key, kept in a bounded min heap, equal keys keep the element added first
+ */
+public final class TopN<T> {
+
+	private final int n;
+	private final Function<? super T, ?> sortTransformation;
+	private final Comparator<Object> comparator;
+	private final PriorityQueue<Entry<T>> heap;
+	private long counter = 0;
+
+	@SuppressWarnings("unchecked")
+	private TopN(int n, Function<? super T, ?> sortTransformation, Comparator<?> comparator) {
+		Preconditions.checkArgument(n > 0, "n must be bigger then 0");
+		this.n = n;
+		this.sortTransformation = Preconditions.checkNotNull(sortTransformation, "sortTransformation is null");
+		this.comparator = (Comparator<Object>) Preconditions.checkNotNull(comparator, "comparator is null");
+		this.heap = new PriorityQueue<Entry<T>>(n, new EvictFirst());
+	}
+
+	public static <T, S> TopN<T> of(int n, Function<? super T, S> sortTransformation, Comparator<? super S> comparator) {
+		return new TopN<T>(n, sortTransformation, comparator);
+	}
+
+	public TopN<T> add(T value) {
+		offer(sortTransformation.apply(value), value);
+		return this;
+	}
+
+	public int size() {
+		return heap.size();
+	}
+
+	/**
+	 * biggest first
+	 */
+	public ImmutableList<T> sorted() {
+		Entry<T>[] entries = entries();
+		Arrays.sort(entries, new EvictFirst());
+		ImmutableList.Builder<T> builder = ImmutableList.builder();
+		for (int i = entries.length - 1; i >= 0; i--) {
+			builder.add(entries[i].value);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * elements of this one count as added before the elements of the other one
+	 */
+	public TopN<T> merge(TopN<T> other) {
+		Preconditions.checkNotNull(other, "other is null");
+		Preconditions.checkArgument(other.n == n, "n mismatch: %s != %s", n, other.n);
+		TopN<T> ret = new TopN<T>(n, sortTransformation, comparator);
+		ret.offerAll(entries());
+		ret.offerAll(other.entries());
+		return ret;
+	}
+
+	private void offerAll(Entry<T>[] entries) {
+		Arrays.sort(entries, new InsertionOrder());
+		for (Entry<T> entry : entries) {
+			offer(entry.key, entry.value);
+		}
+	}
+
+	private void offer(Object key, T value) {
+		Entry<T> entry = new Entry<T>(key, counter++, value);
+		if (heap.size() < n) {
+			heap.add(entry);
+		} else if (compare(entry, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(entry);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Entry<T>[] entries() {
+		return (Entry<T>[]) heap.toArray(new Entry<?>[heap.size()]);
+	}
+
+	private int compare(Entry<T> a, Entry<T> b) {
+		int ret = comparator.compare(a.key, b.key);
+		return ret != 0
+				? ret
+				: (a.index < b.index
+						? 1
+						: (a.index == b.index
+								? 0
+								: -1));
+	}
+
+	@Override
+	public String toString() {
+		return "TopN" + sorted();
+	}
+
+	private final class EvictFirst implements Comparator<Entry<T>> {
+
+		@Override
+		public int compare(Entry<T> a, Entry<T> b) {
+			return TopN.this.compare(a, b);
+		}
+	}
+
+	private static final class InsertionOrder implements Comparator<Entry<?>> {
+
+		@Override
+		public int compare(Entry<?> a, Entry<?> b) {
+			return a.index < b.index
+					? -1
+					: (a.index == b.index
+							? 0
+							: 1);
+		}
+	}
+
+	private static final class Entry<T> {
+
+		final Object key;
+		final long index;
+		final T value;
+
+		Entry(Object key, long index, T value) {
+			this.key = key;
+			this.index = index;
+			this.value = value;
+		}
+	}
+}
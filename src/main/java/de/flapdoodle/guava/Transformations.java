@@ -16,28 +16,42 @@
  */
 package de.flapdoodle.guava;
 
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.google.common.base.Function;
-import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.UnmodifiableIterator;
 
 import de.flapdoodle.guava.functions.BiFunction;
 import de.flapdoodle.guava.functions.NoTransformation;
+import de.flapdoodle.guava.functions.ToLongFunction;
+import de.flapdoodle.guava.functions.TransformationToCollection;
+import de.flapdoodle.guava.functions.TriFunction;
 import de.flapdoodle.guava.functions.ValueToCollection;
+import de.flapdoodle.guava.monads.TryX;
 
 public abstract class Transformations {
 
@@ -51,7 +65,36 @@ public abstract class Transformations {
 
 	public static <S, D, C extends Collection<? extends D>> ImmutableList<? extends D> flatmap(Collection<? extends S> source,
 			Function<? super S, C> transformation) {
-		return Folds.foldLeft(source, Folds.asListFold(transformation), ImmutableList.<D> of());
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		return Transformations.<D> asImmutableList(flatmapToArray(source, transformation));
+	}
+
+	/**
+	 * applies the transformation on chunks of the source in the given pool, the result keeps the source order
+	 */
+	public static <S, D, C extends Collection<? extends D>> ImmutableList<? extends D> flatmap(List<? extends S> source,
+			Function<? super S, C> transformation, ForkJoinPool pool) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		Preconditions.checkNotNull(pool, "pool is null");
+
+		List<? extends S> randomAccess = asRandomAccess(source, "source");
+		int chunkSize = Math.max(1, randomAccess.size() / (pool.getParallelism() * 4));
+		Object[][] chunks = new Object[(randomAccess.size() + chunkSize - 1) / chunkSize][];
+		pool.invoke(new FlatmapTask(randomAccess, transformation, chunks, chunkSize, 0, chunks.length));
+
+		int size = 0;
+		for (Object[] chunk : chunks) {
+			size += chunk.length;
+		}
+		Object[] ret = new Object[size];
+		int pos = 0;
+		for (Object[] chunk : chunks) {
+			System.arraycopy(chunk, 0, ret, pos, chunk.length);
+			pos += chunk.length;
+		}
+		return Transformations.<D> asImmutableList(ret);
 	}
 
 	public static <S, D, C extends Iterable<? extends D>> Iterable<? extends D> flatmap(Iterable<? extends S> source,
@@ -60,6 +103,14 @@ public abstract class Transformations {
 		return FluentIterable.from(source).transformAndConcat(transformation);
 	}
 
+	/**
+	 * computes each element only once, use it for results of flatmap or Flatter which are iterated more than once
+	 */
+	public static <T> Iterable<T> memoize(Iterable<? extends T> source) {
+		Preconditions.checkNotNull(source, "source is null");
+		return new MemoizingIterable<T>(source);
+	}
+
 	public static <T> ImmutableList<? extends T> flatmap(Collection<? extends Collection<? extends T>> collections) {
 		return flatmap(collections, new Function<Collection<? extends T>, Collection<? extends T>>() {
 
@@ -122,6 +173,95 @@ public abstract class Transformations {
 		return map;
 	}
 
+	/**
+	 * same semantics as map(collection, keyTransformation, valueTransformation), fails if two elements map to the same key,
+	 * also if they end up in different chunks
+	 */
+	public static <K, V, T> FoldCollector<T, Map<K, V>, Map<K, V>> asMapCollector(Function<? super T, K> keyTransformation,
+			Function<? super T, V> valueTransformation) {
+		return asMapCollector(keyTransformation, new Folds.ValueFromLeftIllegalFold<T, V>(valueTransformation),
+				new BiFunction<V, V, V>() {
+
+					@Override
+					public V apply(V left, V right) {
+						throw new IllegalArgumentException("entry '" + right + "' is allready mapped to the same key as '" + left + "'");
+					}
+				}, FoldCollector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * same semantics as map(collection, keyTransformation, valueFold), values of the same key from different chunks
+	 * are combined in source order
+	 */
+	public static <K, V, T> FoldCollector<T, Map<K, V>, Map<K, V>> asMapCollector(final Function<? super T, K> keyTransformation,
+			Foldleft<? super T, V> valueFold, BiFunction<V, V, V> valueCombiner) {
+		return asMapCollector(keyTransformation, valueFold, valueCombiner, new FoldCollector.Characteristics[0]);
+	}
+
+	private static <K, V, T> FoldCollector<T, Map<K, V>, Map<K, V>> asMapCollector(final Function<? super T, K> keyTransformation,
+			final Foldleft<? super T, V> valueFold, final BiFunction<V, V, V> valueCombiner,
+			FoldCollector.Characteristics... characteristics) {
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkNotNull(valueFold, "valueFold is null");
+		Preconditions.checkNotNull(valueCombiner, "valueCombiner is null");
+		return FoldCollector.of(new Supplier<Map<K, V>>() {
+
+			@Override
+			public Map<K, V> get() {
+				return MapCreators.<K, V> hashMap().newInstance();
+			}
+		}, new Foldleft<T, Map<K, V>>() {
+
+			@Override
+			public Map<K, V> apply(Map<K, V> map, T value) {
+				K key = keyTransformation.apply(value);
+				map.put(key, valueFold.apply(map.get(key), value));
+				return map;
+			}
+		}, new BiFunction<Map<K, V>, Map<K, V>, Map<K, V>>() {
+
+			@Override
+			public Map<K, V> apply(Map<K, V> left, Map<K, V> right) {
+				for (Map.Entry<K, V> entry : right.entrySet()) {
+					V old = left.get(entry.getKey());
+					left.put(entry.getKey(), old != null
+							? valueCombiner.apply(old, entry.getValue())
+							: entry.getValue());
+				}
+				return left;
+			}
+		}, characteristics);
+	}
+
+	/**
+	 * the n biggest elements per key, biggest first, keeps only n elements per key in memory
+	 */
+	public static <K, T, S> Map<K, ImmutableList<T>> topN(Iterable<T> collection, Function<? super T, K> keyTransformation, int n,
+			Function<? super T, S> sortTransformation, Comparator<? super S> comparator) {
+		Map<K, TopN<T>> groups = map(collection, keyTransformation, Folds.<T, S> topNFold(n, sortTransformation, comparator));
+		Map<K, ImmutableList<T>> ret = MapCreators.<K, ImmutableList<T>> hashMap().newInstance();
+		for (Map.Entry<K, TopN<T>> entry : groups.entrySet()) {
+			ret.put(entry.getKey(), entry.getValue().sorted());
+		}
+		return ret;
+	}
+
+	/**
+	 * runs the transformation in the executor with at most maxConcurrency calls at a time, the result keeps the source order
+	 */
+	public static <S, D> ImmutableList<D> mapConcurrently(Iterable<? extends S> source, Function<? super S, ? extends D> transformation,
+			Executor executor, int maxConcurrency) {
+		return ConcurrentMapper.map(source, transformation, executor, maxConcurrency);
+	}
+
+	/**
+	 * like mapConcurrently, but failed transformations are collected as failure instead of aborting all others
+	 */
+	public static <S, D> ImmutableList<TryX<D>> tryMapConcurrently(Iterable<? extends S> source,
+			Function<? super S, ? extends D> transformation, Executor executor, int maxConcurrency) {
+		return ConcurrentMapper.tryMap(source, transformation, executor, maxConcurrency);
+	}
+
 	public static <A, B> Predicate<B> map(final Predicate<A> predicate, final Function<B, A> transformation) {
 		return new Predicate<B>() {
 
@@ -135,6 +275,9 @@ public abstract class Transformations {
 	public static <T> Iterable<T> firstOf(Iterable<T> collections, int items) {
 		Preconditions.checkArgument(items > 0, "items must be bigger then 0");
 //	return Lists.newArrayList(collections).subList(0, Math.min(collections.size(), items));
+		if (collections instanceof List && collections instanceof RandomAccess) {
+			return new LimitedList<T>((List<T>) collections, items);
+		}
 		return FluentIterable.from(collections).limit(items);
 	}
 
@@ -150,18 +293,68 @@ public abstract class Transformations {
 		return Optional.of(collections.iterator().next());
 	}
 
+	/**
+	 * lazy view which keeps the first element for each key, only the keys are kept in a compact open addressing set
+	 */
+	public static <T> Iterable<T> distinctBy(Iterable<T> source, Function<? super T, ?> keyTransformation) {
+		return Distinct.by(source, keyTransformation);
+	}
+
+	public static <T> Iterable<T> distinctBy(Iterable<T> source, ToLongFunction<? super T> keyTransformation) {
+		return Distinct.byLong(source, keyTransformation);
+	}
+
+	/**
+	 * bounded memory: remembers at most maxKeys key hashes (the largest power of two not above maxKeys), so a
+	 * duplicate can pass if its slot was reused and an element can be dropped if its key hash equals the hash
+	 * of a different key
+	 */
+	public static <T> Iterable<T> approximatelyDistinctBy(Iterable<T> source, Function<? super T, ?> keyTransformation, int maxKeys) {
+		return Distinct.approximatelyBy(source, keyTransformation, maxKeys);
+	}
+
+	public static <T> List<T> distinctBy(List<T> source, Function<? super T, ?> keyTransformation, ForkJoinPool pool) {
+		return Distinct.by(source, keyTransformation, pool);
+	}
+
 	public static <T> Partition<T> partition(Collection<T> collection, Predicate<? super T> filter) {
 		return new Partition<T>(Collections2.filter(collection, filter), Collections2.filter(collection,
 				Predicates.not(filter)));
 	}
 
+	/**
+	 * an ImmutableList is split without copy, for other random access lists both parts are read only views
+	 * of the source, so they see changes of the source and fail on iteration after a structural change of it,
+	 * all other collections are copied
+	 */
 	public static <T> Partition<T> split(Collection<T> source, int index) {
-		List<T> asList = ImmutableList.copyOf(source);
 		Preconditions.checkArgument(index >= 0, "index < 0");
+		if (source instanceof ImmutableList) {
+			ImmutableList<T> asList = (ImmutableList<T>) source;
+			Preconditions.checkArgument(index <= asList.size(), "index > size");
+			return new Partition<T>(asList.subList(0, index), asList.subList(index, asList.size()));
+		}
+		if (source instanceof List && source instanceof RandomAccess) {
+			List<T> asList = (List<T>) source;
+			Preconditions.checkArgument(index <= asList.size(), "index > size");
+			return new Partition<T>(Collections.unmodifiableList(asList.subList(0, index)),
+					Collections.unmodifiableList(asList.subList(index, asList.size())));
+		}
+		ImmutableList<T> asList = ImmutableList.copyOf(source);
 		Preconditions.checkArgument(index <= asList.size(), "index > size");
 		return new Partition<T>(asList.subList(0, index), asList.subList(index, asList.size()));
 	}
 
+	/**
+	 * buffers only the first index elements, the tail is a lazy view which skips them on each iteration
+	 */
+	public static <T> Pair<ImmutableList<T>, Iterable<T>> split(Iterable<T> source, int index) {
+		Preconditions.checkArgument(index >= 0, "index < 0");
+		ImmutableList<T> head = ImmutableList.copyOf(Iterables.limit(source, index));
+		Preconditions.checkArgument(index <= head.size(), "index > size");
+		return Pair.<ImmutableList<T>, Iterable<T>> of(head, Iterables.skip(source, index));
+	}
+
 	@Deprecated
 	@InlineCallToReplaceDeprecatedFunction
 	public static <A,B> ImmutableList<Pair<A,B>> zip(Iterable<A> a, Iterable<B> b) {
@@ -208,6 +401,61 @@ public abstract class Transformations {
 		};
 	}
 
+	public static <A,B,C> Iterable<C> zip(final Iterable<A> a, final Iterable<B> b, final BiFunction<A, B, C> zipper) {
+		Preconditions.checkNotNull(a,"a is null");
+		Preconditions.checkNotNull(b,"b is null");
+
+		if (a instanceof List && a instanceof RandomAccess && b instanceof List && b instanceof RandomAccess) {
+			return zip((List<A>) a, (List<B>) b, zipper);
+		}
+
+		return new Iterable<C>() {
+
+			@Override
+			public Iterator<C> iterator() {
+				return zip(a.iterator(), b.iterator(), zipper).iterator();
+			}
+		};
+	}
+
+	public static <A,B,C> List<C> zip(List<A> a, List<B> b, BiFunction<A, B, C> zipper) {
+		Preconditions.checkNotNull(zipper,"zipper is null");
+		return new ZippedList<A, B, C>(asRandomAccess(a, "a"), asRandomAccess(b, "b"), zipper);
+	}
+
+	public static <A,B,C,D> List<D> zip(List<A> a, List<B> b, List<C> c, TriFunction<A, B, C, D> zipper) {
+		Preconditions.checkNotNull(zipper,"zipper is null");
+		return new TriZippedList<A, B, C, D>(asRandomAccess(a, "a"), asRandomAccess(b, "b"), asRandomAccess(c, "c"), zipper);
+	}
+
+	public static <T,D> List<D> zip(List<? extends List<? extends T>> sources, Function<? super List<T>, D> zipper) {
+		Preconditions.checkNotNull(sources,"sources is null");
+		Preconditions.checkNotNull(zipper,"zipper is null");
+		ImmutableList.Builder<List<? extends T>> builder = ImmutableList.builder();
+		for (int i = 0; i < sources.size(); i++) {
+			builder.add(asRandomAccess(sources.get(i), "sources[" + i + "]"));
+		}
+		return new NZippedList<T, D>(builder.build(), zipper);
+	}
+
+	public static <A,B,C> C[] zipInto(List<A> a, List<B> b, BiFunction<A, B, C> zipper, C[] target) {
+		Preconditions.checkNotNull(target,"target is null");
+		List<C> zipped = zip(a, b, zipper);
+		int size = zipped.size();
+		Preconditions.checkArgument(target.length >= size, "target.length < %s", size);
+		for (int i = 0; i < size; i++) {
+			target[i] = zipped.get(i);
+		}
+		return target;
+	}
+
+	private static <T> List<T> asRandomAccess(List<T> source, String name) {
+		Preconditions.checkNotNull(source, "%s is null", name);
+		return source instanceof RandomAccess
+				? source
+				: ImmutableList.copyOf(source);
+	}
+
 	public static <V> Function<V, V> noop() {
 		return new NoTransformation<V>();
 	}
@@ -217,6 +465,245 @@ public abstract class Transformations {
 	}
 
 	public static <S, D> Function<S, Collection<? extends D>> asCollection(Function<S, D> transformation) {
-		return Functions.compose(new ValueToCollection<D>(), transformation);
+		return new TransformationToCollection<S, D>(transformation);
+	}
+
+	/**
+	 * Guava 19 ImmutableList.copyOf(Collection) takes the array from toArray() as list content without another
+	 * copy, guava is a provided dependency, so a newer version may copy again, which costs one copy but is still
+	 * correct, values must not be used after this call
+	 */
+	@SuppressWarnings("unchecked")
+	private static <D> ImmutableList<D> asImmutableList(Object[] values) {
+		return (ImmutableList<D>) ImmutableList.copyOf(new ArrayHandover(values));
+	}
+
+	/**
+	 * applies the transformation once per element, sums up the sizes and copies every result into
+	 * one preallocated array, one element transformations skip the collection wrapper
+	 */
+	static Object[] flatmapToArray(Collection<?> source, Function<?, ?> transformation) {
+		if (transformation instanceof ValueToCollection) {
+			return source.toArray();
+		}
+		@SuppressWarnings("unchecked")
+		Function<Object, ?> function = (Function<Object, ?>) ((transformation instanceof TransformationToCollection)
+				? ((TransformationToCollection<?, ?>) transformation).transformation()
+				: transformation);
+		boolean singleValue = transformation instanceof TransformationToCollection;
+
+		Object[] parts = new Object[source.size()];
+		int count = 0;
+		int size = 0;
+		for (Object s : source) {
+			if (count == parts.length) {
+				parts = Arrays.copyOf(parts, Math.max(8, count * 2));
+			}
+			Object part = function.apply(s);
+			if (singleValue) {
+				size++;
+			} else {
+				size += ((Collection<?>) part).size();
+			}
+			parts[count++] = part;
+		}
+
+		if (singleValue) {
+			return count == parts.length
+					? parts
+					: Arrays.copyOf(parts, count);
+		}
+
+		Object[] ret = new Object[size];
+		int pos = 0;
+		for (int i = 0; i < count; i++) {
+			Object[] values = ((Collection<?>) parts[i]).toArray();
+			if (pos + values.length > ret.length) {
+				ret = Arrays.copyOf(ret, pos + values.length);
+			}
+			System.arraycopy(values, 0, ret, pos, values.length);
+			pos += values.length;
+		}
+		return pos == ret.length
+				? ret
+				: Arrays.copyOf(ret, pos);
+	}
+
+	private static int zippedSize(String names, int... sizes) {
+		for (int i = 1; i < sizes.length; i++) {
+			if (sizes[i] != sizes[0]) {
+				throw new IndexOutOfBoundsException("size mismatch in " + names + ": " + Arrays.toString(sizes));
+			}
+		}
+		return sizes.length > 0
+				? sizes[0]
+				: 0;
+	}
+
+	private static final class ZippedList<A, B, C> extends AbstractList<C> implements RandomAccess {
+
+		private final List<A> a;
+		private final List<B> b;
+		private final BiFunction<A, B, C> zipper;
+		private final int size;
+
+		ZippedList(List<A> a, List<B> b, BiFunction<A, B, C> zipper) {
+			this.a = a;
+			this.b = b;
+			this.zipper = zipper;
+			this.size = zippedSize("a,b", a.size(), b.size());
+		}
+
+		@Override
+		public C get(int index) {
+			return zipper.apply(a.get(index), b.get(index));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static final class TriZippedList<A, B, C, D> extends AbstractList<D> implements RandomAccess {
+
+		private final List<A> a;
+		private final List<B> b;
+		private final List<C> c;
+		private final TriFunction<A, B, C, D> zipper;
+		private final int size;
+
+		TriZippedList(List<A> a, List<B> b, List<C> c, TriFunction<A, B, C, D> zipper) {
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.zipper = zipper;
+			this.size = zippedSize("a,b,c", a.size(), b.size(), c.size());
+		}
+
+		@Override
+		public D get(int index) {
+			return zipper.apply(a.get(index), b.get(index), c.get(index));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static final class NZippedList<T, D> extends AbstractList<D> implements RandomAccess {
+
+		private final ImmutableList<List<? extends T>> sources;
+		private final Function<? super List<T>, D> zipper;
+		private final int size;
+
+		NZippedList(ImmutableList<List<? extends T>> sources, Function<? super List<T>, D> zipper) {
+			this.sources = sources;
+			this.zipper = zipper;
+			int[] sizes = new int[sources.size()];
+			for (int i = 0; i < sizes.length; i++) {
+				sizes[i] = sources.get(i).size();
+			}
+			this.size = zippedSize("sources", sizes);
+		}
+
+		@Override
+		public D get(int index) {
+			Object[] row = new Object[sources.size()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = sources.get(i).get(index);
+			}
+			@SuppressWarnings("unchecked")
+			List<T> asList = (List<T>) Arrays.asList(row);
+			return zipper.apply(asList);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static final class ArrayHandover extends AbstractCollection<Object> {
+
+		private final Object[] values;
+
+		ArrayHandover(Object[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Object[] toArray() {
+			return values;
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			return Iterators.forArray(values);
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class FlatmapTask extends RecursiveAction {
+
+		private final List<?> source;
+		private final Function<?, ?> transformation;
+		private final Object[][] chunks;
+		private final int chunkSize;
+		private final int firstChunk;
+		private final int lastChunk;
+
+		FlatmapTask(List<?> source, Function<?, ?> transformation, Object[][] chunks, int chunkSize, int firstChunk, int lastChunk) {
+			this.source = source;
+			this.transformation = transformation;
+			this.chunks = chunks;
+			this.chunkSize = chunkSize;
+			this.firstChunk = firstChunk;
+			this.lastChunk = lastChunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (lastChunk - firstChunk > 1) {
+				int middle = (firstChunk + lastChunk) >>> 1;
+				invokeAll(new FlatmapTask(source, transformation, chunks, chunkSize, firstChunk, middle),
+						new FlatmapTask(source, transformation, chunks, chunkSize, middle, lastChunk));
+			} else if (lastChunk > firstChunk) {
+				int from = firstChunk * chunkSize;
+				int to = Math.min(source.size(), from + chunkSize);
+				chunks[firstChunk] = flatmapToArray(source.subList(from, to), transformation);
+			}
+		}
+	}
+
+	/**
+	 * sized random access view, so parallel consumers can split it by index
+	 */
+	private static final class LimitedList<T> extends AbstractList<T> implements RandomAccess {
+
+		private final List<T> source;
+		private final int items;
+
+		LimitedList(List<T> source, int items) {
+			this.source = source;
+			this.items = items;
+		}
+
+		@Override
+		public T get(int index) {
+			Preconditions.checkElementIndex(index, size());
+			return source.get(index);
+		}
+
+		@Override
+		public int size() {
+			return Math.min(source.size(), items);
+		}
 	}
 }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * weighted sample without replacement of at most k elements (Efraimidis/Spirakis A-Res):
+ * each element gets the key log(u)/weight and the k biggest keys are kept
+ */
+public final class WeightedReservoir<T> {
+
+	private final int k;
+	private final Random random;
+	private final PriorityQueue<Entry<T>> heap;
+
+	public WeightedReservoir(int k, Random random) {
+		Preconditions.checkArgument(k > 0, "k must be bigger then 0");
+		this.k = k;
+		this.random = Preconditions.checkNotNull(random, "random is null");
+		this.heap = new PriorityQueue<Entry<T>>(k);
+	}
+
+	public WeightedReservoir<T> add(T value, double weight) {
+		Preconditions.checkArgument(weight > 0, "weight must be bigger then 0: %s", weight);
+		offer(new Entry<T>(Math.log(1.0 - random.nextDouble()) / weight, value));
+		return this;
+	}
+
+	public List<T> sample() {
+		List<T> ret = Lists.newArrayListWithCapacity(heap.size());
+		for (Entry<T> entry : heap) {
+			ret.add(entry.value);
+		}
+		return ret;
+	}
+
+	/**
+	 * keys are independent of the chunk an element was added to, so keeping the k biggest of both is exact
+	 */
+	public WeightedReservoir<T> merge(WeightedReservoir<? extends T> other) {
+		Preconditions.checkNotNull(other, "other is null");
+		Preconditions.checkArgument(other.k == k, "k mismatch: %s != %s", k, other.k);
+		WeightedReservoir<T> ret = new WeightedReservoir<T>(k, random);
+		for (Entry<T> entry : heap) {
+			ret.offer(entry);
+		}
+		for (Entry<? extends T> entry : ImmutableList.copyOf(other.heap)) {
+			ret.offer(new Entry<T>(entry.key, entry.value));
+		}
+		return ret;
+	}
+
+	private void offer(Entry<T> entry) {
+		if (heap.size() < k) {
+			heap.add(entry);
+		} else if (heap.peek().key < entry.key) {
+			heap.poll();
+			heap.add(entry);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "WeightedReservoir[sample=" + sample() + "]";
+	}
+
+	static final class Entry<T> implements Comparable<Entry<T>> {
+
+		final double key;
+		final T value;
+
+		Entry(double key, T value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(Entry<T> other) {
+			return Double.compare(key, other.key);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * serializes all emissions of an operator, whoever calls drain() while another thread is draining
+ * only marks the work as missed and the running drain loop repeats
+ */
+abstract class Drain {
+
+	private final AtomicInteger wip = new AtomicInteger();
+
+	final void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			drainLoop();
+			missed = wip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	abstract void drainLoop();
+
+	static void add(AtomicLong requested, long n) {
+		long current;
+		long next;
+		do {
+			current = requested.get();
+			next = current + n;
+			if (next < 0) {
+				next = Long.MAX_VALUE;
+			}
+		} while (!requested.compareAndSet(current, next));
+	}
+
+	static void produced(AtomicLong requested, long n) {
+		long current;
+		do {
+			current = requested.get();
+			if (current == Long.MAX_VALUE) {
+				return;
+			}
+		} while (!requested.compareAndSet(current, current - n));
+	}
+
+	static IllegalArgumentException invalidRequest(long n) {
+		return new IllegalArgumentException("request must be bigger then 0: " + n);
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Function;
+
+/**
+ * keeps at most prefetch upstream elements and requests more in batches when three quarters of them are consumed
+ */
+final class FlatmapPublisher<S, D> implements Publisher<D> {
+
+	private final Publisher<? extends S> source;
+	private final Function<? super S, ? extends Iterable<? extends D>> transformation;
+	private final int prefetch;
+
+	FlatmapPublisher(Publisher<? extends S> source, Function<? super S, ? extends Iterable<? extends D>> transformation, int prefetch) {
+		this.source = source;
+		this.transformation = transformation;
+		this.prefetch = prefetch;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super D> subscriber) {
+		source.subscribe(new FlatmapSubscriber<S, D>(subscriber, transformation, prefetch));
+	}
+
+	static final class FlatmapSubscriber<S, D> extends Drain implements Subscriber<S>, Subscription {
+
+		private final Subscriber<? super D> downstream;
+		private final Function<? super S, ? extends Iterable<? extends D>> transformation;
+		private final int prefetch;
+		private final int limit;
+		private final Queue<S> queue = new ConcurrentLinkedQueue<S>();
+		private final AtomicLong requested = new AtomicLong();
+
+		private volatile Subscription upstream;
+		private volatile boolean done;
+		private volatile Throwable error;
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+
+		private Iterator<? extends D> current;
+		private int consumed;
+
+		FlatmapSubscriber(Subscriber<? super D> downstream, Function<? super S, ? extends Iterable<? extends D>> transformation, int prefetch) {
+			this.downstream = downstream;
+			this.transformation = transformation;
+			this.prefetch = prefetch;
+			this.limit = prefetch - (prefetch >> 2);
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.upstream = subscription;
+			downstream.onSubscribe(this);
+			subscription.request(prefetch);
+		}
+
+		@Override
+		public void onNext(S item) {
+			queue.offer(item);
+			drain();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			done = true;
+			drain();
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = invalidRequest(n);
+			} else {
+				add(requested, n);
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			upstream.cancel();
+		}
+
+		@Override
+		void drainLoop() {
+			long r = requested.get();
+			long e = 0;
+			for (;;) {
+				if (cancelled) {
+					current = null;
+					queue.clear();
+					return;
+				}
+				if (invalidRequest != null) {
+					fail(invalidRequest);
+					return;
+				}
+				if (current != null) {
+					D value = null;
+					boolean hasNext;
+					try {
+						hasNext = current.hasNext();
+						if (hasNext && e != r) {
+							value = current.next();
+						}
+					} catch (RuntimeException rx) {
+						fail(rx);
+						return;
+					}
+					if (hasNext) {
+						if (e == r) {
+							break;
+						}
+						downstream.onNext(value);
+						e++;
+						continue;
+					}
+					// exhausted, so the completion check below runs also at exact demand
+					current = null;
+				}
+
+				boolean isDone = done;
+				S item = queue.poll();
+				if (item == null) {
+					if (isDone) {
+						cancelled = true;
+						if (error != null) {
+							downstream.onError(error);
+						} else {
+							downstream.onComplete();
+						}
+						return;
+					}
+					break;
+				}
+				if (++consumed == limit) {
+					consumed = 0;
+					upstream.request(limit);
+				}
+				try {
+					current = transformation.apply(item).iterator();
+				} catch (RuntimeException rx) {
+					fail(rx);
+					return;
+				}
+			}
+			if (e != 0) {
+				produced(requested, e);
+			}
+		}
+
+		private void fail(Throwable throwable) {
+			cancelled = true;
+			current = null;
+			queue.clear();
+			upstream.cancel();
+			downstream.onError(throwable);
+		}
+	}
+}
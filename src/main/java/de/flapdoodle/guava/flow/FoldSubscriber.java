@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import de.flapdoodle.guava.Foldleft;
+
+/**
+ * requests batchSize elements at a time and completes the future with the folded value,
+ * cancelling the future cancels the subscription
+ */
+final class FoldSubscriber<T, L> implements Subscriber<T> {
+
+	private final Foldleft<? super T, L> fold;
+	private final int batchSize;
+	private final SettableFuture<L> result = SettableFuture.create();
+
+	private Subscription subscription;
+	private L left;
+	private int received;
+	private boolean done;
+
+	FoldSubscriber(Foldleft<? super T, L> fold, L left, int batchSize) {
+		this.fold = fold;
+		this.left = left;
+		this.batchSize = batchSize;
+	}
+
+	SettableFuture<L> result() {
+		return result;
+	}
+
+	@Override
+	public void onSubscribe(final Subscription subscription) {
+		this.subscription = subscription;
+		result.addListener(new Runnable() {
+
+			@Override
+			public void run() {
+				if (result.isCancelled()) {
+					subscription.cancel();
+				}
+			}
+		}, MoreExecutors.directExecutor());
+		subscription.request(batchSize);
+	}
+
+	@Override
+	public void onNext(T item) {
+		if (done) {
+			return;
+		}
+		try {
+			left = fold.apply(left, item);
+		} catch (RuntimeException rx) {
+			subscription.cancel();
+			onError(rx);
+			return;
+		}
+		if (++received == batchSize) {
+			received = 0;
+			subscription.request(batchSize);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (!done) {
+			done = true;
+			result.setException(throwable);
+		}
+	}
+
+	@Override
+	public void onComplete() {
+		if (!done) {
+			done = true;
+			result.set(left);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class IterablePublisher<T> implements Publisher<T> {
+
+	private final Iterable<? extends T> source;
+
+	IterablePublisher(Iterable<? extends T> source) {
+		this.source = source;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		Iterator<? extends T> iterator;
+		try {
+			iterator = source.iterator();
+		} catch (RuntimeException rx) {
+			subscriber.onSubscribe(new IteratorSubscription<T>(subscriber, null));
+			subscriber.onError(rx);
+			return;
+		}
+		subscriber.onSubscribe(new IteratorSubscription<T>(subscriber, iterator));
+	}
+
+	static final class IteratorSubscription<T> extends Drain implements Subscription {
+
+		private final Subscriber<? super T> subscriber;
+		private final Iterator<? extends T> iterator;
+		private final AtomicLong requested = new AtomicLong();
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+
+		IteratorSubscription(Subscriber<? super T> subscriber, Iterator<? extends T> iterator) {
+			this.subscriber = subscriber;
+			this.iterator = iterator;
+			this.cancelled = iterator == null;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = invalidRequest(n);
+			} else {
+				add(requested, n);
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		@Override
+		void drainLoop() {
+			long r = requested.get();
+			long e = 0;
+			while (!cancelled) {
+				if (invalidRequest != null) {
+					cancelled = true;
+					subscriber.onError(invalidRequest);
+					return;
+				}
+				boolean hasNext;
+				T next = null;
+				try {
+					hasNext = iterator.hasNext();
+					if (hasNext && e != r) {
+						next = iterator.next();
+					}
+				} catch (RuntimeException rx) {
+					cancelled = true;
+					subscriber.onError(rx);
+					return;
+				}
+				if (!hasNext) {
+					cancelled = true;
+					subscriber.onComplete();
+					return;
+				}
+				if (e == r) {
+					break;
+				}
+				subscriber.onNext(next);
+				e++;
+			}
+			if (e != 0) {
+				produced(requested, e);
+			}
+		}
+	}
+}
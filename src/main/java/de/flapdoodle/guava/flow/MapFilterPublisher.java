@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+
+/**
+ * map and filter need no buffer, demand and cancellation are passed through to the upstream
+ */
+final class MapFilterPublisher<S, D> implements Publisher<D> {
+
+	private final Publisher<? extends S> source;
+	private final Predicate<? super S> filter;
+	private final Function<? super S, ? extends D> transformation;
+
+	MapFilterPublisher(Publisher<? extends S> source, Predicate<? super S> filter, Function<? super S, ? extends D> transformation) {
+		this.source = source;
+		this.filter = filter;
+		this.transformation = transformation;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super D> subscriber) {
+		source.subscribe(new MapFilterSubscriber<S, D>(subscriber, filter, transformation));
+	}
+
+	static final class MapFilterSubscriber<S, D> implements Subscriber<S>, Subscription {
+
+		private final Subscriber<? super D> downstream;
+		private final Predicate<? super S> filter;
+		private final Function<? super S, ? extends D> transformation;
+		private Subscription upstream;
+		private boolean done;
+
+		MapFilterSubscriber(Subscriber<? super D> downstream, Predicate<? super S> filter, Function<? super S, ? extends D> transformation) {
+			this.downstream = downstream;
+			this.filter = filter;
+			this.transformation = transformation;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.upstream = subscription;
+			downstream.onSubscribe(this);
+		}
+
+		@Override
+		public void onNext(S item) {
+			if (done) {
+				return;
+			}
+			D value;
+			try {
+				if (!filter.apply(item)) {
+					upstream.request(1);
+					return;
+				}
+				value = transformation.apply(item);
+			} catch (RuntimeException rx) {
+				upstream.cancel();
+				onError(rx);
+				return;
+			}
+			downstream.onNext(value);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			if (!done) {
+				done = true;
+				downstream.onError(throwable);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			if (!done) {
+				done = true;
+				downstream.onComplete();
+			}
+		}
+
+		@Override
+		public void request(long n) {
+			upstream.request(n);
+		}
+
+		@Override
+		public void cancel() {
+			upstream.cancel();
+		}
+	}
+}
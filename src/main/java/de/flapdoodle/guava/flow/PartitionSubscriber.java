@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Predicate;
+
+/**
+ * routes each upstream element into the queue of one side, upstream demand is limited by the fullest queue
+ * of all sides which are not cancelled
+ */
+final class PartitionSubscriber<T> extends Drain implements Subscriber<T> {
+
+	private final Predicate<? super T> filter;
+	private final int prefetch;
+	private final int limit;
+	private final Side<T> matching;
+	private final Side<T> notMatching;
+	private final AtomicLong outstanding = new AtomicLong();
+
+	private volatile Subscription upstream;
+	private volatile boolean done;
+	private volatile Throwable error;
+	private boolean upstreamCancelled;
+
+	PartitionSubscriber(Predicate<? super T> filter, Subscriber<? super T> matching, Subscriber<? super T> notMatching, int prefetch) {
+		this.filter = filter;
+		this.prefetch = prefetch;
+		this.limit = prefetch - (prefetch >> 2);
+		this.matching = new Side<T>(this, matching);
+		this.notMatching = new Side<T>(this, notMatching);
+	}
+
+	@Override
+	public void onSubscribe(Subscription subscription) {
+		upstream = subscription;
+		matching.downstream.onSubscribe(matching);
+		notMatching.downstream.onSubscribe(notMatching);
+		drain();
+	}
+
+	@Override
+	public void onNext(T item) {
+		outstanding.decrementAndGet();
+		if (done) {
+			return;
+		}
+		boolean isMatching;
+		try {
+			isMatching = filter.apply(item);
+		} catch (RuntimeException rx) {
+			upstream.cancel();
+			onError(rx);
+			return;
+		}
+		Side<T> side = isMatching
+				? matching
+				: notMatching;
+		if (side.cancelled) {
+			// nobody will ever take it, keeping it would grow the queue without bound
+			return;
+		}
+		side.queue.offer(item);
+		side.size.incrementAndGet();
+		drain();
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		error = throwable;
+		done = true;
+		drain();
+	}
+
+	@Override
+	public void onComplete() {
+		done = true;
+		drain();
+	}
+
+	@Override
+	void drainLoop() {
+		if (upstream == null) {
+			return;
+		}
+		matching.emit(done, error);
+		notMatching.emit(done, error);
+
+		if (upstreamCancelled || done) {
+			return;
+		}
+		if (matching.cancelled && notMatching.cancelled) {
+			upstreamCancelled = true;
+			upstream.cancel();
+			return;
+		}
+		long room = Math.min(matching.room(prefetch), notMatching.room(prefetch)) - outstanding.get();
+		if (room >= limit || (room > 0 && outstanding.get() == 0)) {
+			outstanding.addAndGet(room);
+			upstream.request(room);
+		}
+	}
+
+	static final class Side<T> implements Subscription {
+
+		private final PartitionSubscriber<T> parent;
+		private final Subscriber<? super T> downstream;
+		private final Queue<T> queue = new ConcurrentLinkedQueue<T>();
+		private final AtomicInteger size = new AtomicInteger();
+		private final AtomicLong requested = new AtomicLong();
+
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+		private boolean terminated;
+
+		Side(PartitionSubscriber<T> parent, Subscriber<? super T> downstream) {
+			this.parent = parent;
+			this.downstream = downstream;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = invalidRequest(n);
+			} else {
+				add(requested, n);
+			}
+			parent.drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			parent.drain();
+		}
+
+		long room(int prefetch) {
+			return cancelled
+					? Long.MAX_VALUE
+					: prefetch - size.get();
+		}
+
+		int queued() {
+			return size.get();
+		}
+
+		void emit(boolean done, Throwable error) {
+			if (terminated) {
+				if (cancelled) {
+					// an item routed here while the cancel was in flight
+					queue.clear();
+					size.set(0);
+				}
+				return;
+			}
+			if (invalidRequest != null) {
+				terminated = true;
+				cancelled = true;
+				downstream.onError(invalidRequest);
+			}
+			if (cancelled) {
+				terminated = true;
+				queue.clear();
+				size.set(0);
+				return;
+			}
+			if (error != null) {
+				terminated = true;
+				queue.clear();
+				size.set(0);
+				downstream.onError(error);
+				return;
+			}
+			long r = requested.get();
+			long e = 0;
+			while (e != r) {
+				T item = queue.poll();
+				if (item == null) {
+					break;
+				}
+				size.decrementAndGet();
+				downstream.onNext(item);
+				e++;
+			}
+			if (e != 0) {
+				produced(requested, e);
+			}
+			if (done && queue.isEmpty()) {
+				terminated = true;
+				downstream.onComplete();
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import java.util.Map;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import de.flapdoodle.guava.Foldleft;
+import de.flapdoodle.guava.functions.BiFunction;
+import de.flapdoodle.guava.functions.NoTransformation;
+
+/**
+ * push based counterparts of Transformations and Folds, every operator respects the requested demand
+ * and buffers at most prefetch elements
+ */
+public abstract class Publishers {
+
+	public static final int DEFAULT_PREFETCH = 128;
+
+	private Publishers() {
+		// no instance
+	}
+
+	public static <T> Publisher<T> from(Iterable<? extends T> source) {
+		Preconditions.checkNotNull(source, "source is null");
+		return new IterablePublisher<T>(source);
+	}
+
+	public static <S, D> Publisher<D> map(Publisher<? extends S> source, Function<? super S, ? extends D> transformation) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		return new MapFilterPublisher<S, D>(source, Predicates.alwaysTrue(), transformation);
+	}
+
+	public static <T> Publisher<T> filter(Publisher<? extends T> source, Predicate<? super T> filter) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(filter, "filter is null");
+		return new MapFilterPublisher<T, T>(source, filter, new NoTransformation<T>());
+	}
+
+	public static <S, D> Publisher<D> flatmap(Publisher<? extends S> source,
+			Function<? super S, ? extends Iterable<? extends D>> transformation) {
+		return flatmap(source, transformation, DEFAULT_PREFETCH);
+	}
+
+	public static <S, D> Publisher<D> flatmap(Publisher<? extends S> source,
+			Function<? super S, ? extends Iterable<? extends D>> transformation, int prefetch) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(transformation, "transformation is null");
+		Preconditions.checkArgument(prefetch > 0, "prefetch must be bigger then 0");
+		return new FlatmapPublisher<S, D>(source, transformation, prefetch);
+	}
+
+	public static <A, B, C> Publisher<C> zip(Publisher<? extends A> a, Publisher<? extends B> b, BiFunction<A, B, C> zipper) {
+		return zip(a, b, zipper, DEFAULT_PREFETCH);
+	}
+
+	public static <A, B, C> Publisher<C> zip(Publisher<? extends A> a, Publisher<? extends B> b, BiFunction<A, B, C> zipper, int prefetch) {
+		Preconditions.checkNotNull(a, "a is null");
+		Preconditions.checkNotNull(b, "b is null");
+		Preconditions.checkNotNull(zipper, "zipper is null");
+		Preconditions.checkArgument(prefetch > 0, "prefetch must be bigger then 0");
+		return new ZipPublisher<A, B, C>(a, b, zipper, prefetch);
+	}
+
+	public static <T> void partition(Publisher<? extends T> source, Predicate<? super T> filter, Subscriber<? super T> matching,
+			Subscriber<? super T> notMatching) {
+		partition(source, filter, matching, notMatching, DEFAULT_PREFETCH);
+	}
+
+	public static <T> void partition(Publisher<? extends T> source, Predicate<? super T> filter, Subscriber<? super T> matching,
+			Subscriber<? super T> notMatching, int prefetch) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(filter, "filter is null");
+		Preconditions.checkNotNull(matching, "matching is null");
+		Preconditions.checkNotNull(notMatching, "notMatching is null");
+		Preconditions.checkArgument(prefetch > 0, "prefetch must be bigger then 0");
+		source.subscribe(new PartitionSubscriber<T>(filter, matching, notMatching, prefetch));
+	}
+
+	public static <T, L> ListenableFuture<L> fold(Publisher<? extends T> source, Foldleft<? super T, L> fold, L left) {
+		return fold(source, fold, left, DEFAULT_PREFETCH);
+	}
+
+	public static <T, L> ListenableFuture<L> fold(Publisher<? extends T> source, Foldleft<? super T, L> fold, L left, int batchSize) {
+		Preconditions.checkNotNull(source, "source is null");
+		Preconditions.checkNotNull(fold, "fold is null");
+		Preconditions.checkArgument(batchSize > 0, "batchSize must be bigger then 0");
+		FoldSubscriber<T, L> subscriber = new FoldSubscriber<T, L>(fold, left, batchSize);
+		source.subscribe(subscriber);
+		return subscriber.result();
+	}
+
+	public static <K, V, T> ListenableFuture<Map<K, V>> asMap(Publisher<? extends T> source, Function<? super T, K> keyTransformation,
+			Foldleft<? super T, V> valueFold) {
+		return asMap(source, keyTransformation, valueFold, DEFAULT_PREFETCH);
+	}
+
+	public static <K, V, T> ListenableFuture<Map<K, V>> asMap(Publisher<? extends T> source, final Function<? super T, K> keyTransformation,
+			final Foldleft<? super T, V> valueFold, int batchSize) {
+		Preconditions.checkNotNull(keyTransformation, "keyTransformation is null");
+		Preconditions.checkNotNull(valueFold, "valueFold is null");
+		return fold(source, new Foldleft<T, Map<K, V>>() {
+
+			@Override
+			public Map<K, V> apply(Map<K, V> map, T value) {
+				K key = keyTransformation.apply(value);
+				map.put(key, valueFold.apply(map.get(key), value));
+				return map;
+			}
+		}, Maps.<K, V> newHashMap(), batchSize);
+	}
+}
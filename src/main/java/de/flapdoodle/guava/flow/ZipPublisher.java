@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.flapdoodle.guava.functions.BiFunction;
+
+/**
+ * buffers at most prefetch elements of each side, fails like Transformations.zip if one side ends before the other
+ */
+final class ZipPublisher<A, B, C> implements Publisher<C> {
+
+	private final Publisher<? extends A> a;
+	private final Publisher<? extends B> b;
+	private final BiFunction<A, B, C> zipper;
+	private final int prefetch;
+
+	ZipPublisher(Publisher<? extends A> a, Publisher<? extends B> b, BiFunction<A, B, C> zipper, int prefetch) {
+		this.a = a;
+		this.b = b;
+		this.zipper = zipper;
+		this.prefetch = prefetch;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super C> subscriber) {
+		ZipCoordinator<A, B, C> coordinator = new ZipCoordinator<A, B, C>(subscriber, zipper, prefetch);
+		subscriber.onSubscribe(coordinator);
+		a.subscribe(coordinator.a);
+		b.subscribe(coordinator.b);
+	}
+
+	static final class ZipCoordinator<A, B, C> extends Drain implements Subscription {
+
+		private final Subscriber<? super C> downstream;
+		private final BiFunction<A, B, C> zipper;
+		private final AtomicLong requested = new AtomicLong();
+		private final Inner<A> a;
+		private final Inner<B> b;
+
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+		private long position;
+
+		ZipCoordinator(Subscriber<? super C> downstream, BiFunction<A, B, C> zipper, int prefetch) {
+			this.downstream = downstream;
+			this.zipper = zipper;
+			this.a = new Inner<A>(this, prefetch);
+			this.b = new Inner<B>(this, prefetch);
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = invalidRequest(n);
+			} else {
+				add(requested, n);
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			a.cancel();
+			b.cancel();
+		}
+
+		@Override
+		void drainLoop() {
+			long r = requested.get();
+			long e = 0;
+			for (;;) {
+				if (cancelled) {
+					a.queue.clear();
+					b.queue.clear();
+					return;
+				}
+				Throwable error = invalidRequest != null
+						? invalidRequest
+						: a.error != null
+								? a.error
+								: b.error;
+				if (error != null) {
+					fail(error);
+					return;
+				}
+				boolean aDone = a.done;
+				A va = a.queue.peek();
+				boolean bDone = b.done;
+				B vb = b.queue.peek();
+
+				boolean aEmpty = va == null && aDone;
+				boolean bEmpty = vb == null && bDone;
+				if (aEmpty && bEmpty) {
+					cancelled = true;
+					downstream.onComplete();
+					return;
+				}
+				if ((aEmpty && vb != null) || (bEmpty && va != null)) {
+					fail(new IndexOutOfBoundsException("no element in " + (aEmpty
+							? "a"
+							: "b") + " found at " + position));
+					return;
+				}
+				if (va == null || vb == null || e == r) {
+					break;
+				}
+				a.queue.poll();
+				b.queue.poll();
+				a.consumed();
+				b.consumed();
+				C value;
+				try {
+					value = zipper.apply(va, vb);
+				} catch (RuntimeException rx) {
+					fail(rx);
+					return;
+				}
+				position++;
+				downstream.onNext(value);
+				e++;
+			}
+			if (e != 0) {
+				produced(requested, e);
+			}
+		}
+
+		private void fail(Throwable error) {
+			cancel();
+			a.queue.clear();
+			b.queue.clear();
+			downstream.onError(error);
+		}
+	}
+
+	static final class Inner<T> implements Subscriber<T> {
+
+		private final ZipCoordinator<?, ?, ?> coordinator;
+		private final int prefetch;
+		private final int limit;
+		final Queue<T> queue = new ConcurrentLinkedQueue<T>();
+
+		private volatile Subscription upstream;
+		private volatile boolean cancelled;
+		volatile boolean done;
+		volatile Throwable error;
+		private int consumed;
+
+		Inner(ZipCoordinator<?, ?, ?> coordinator, int prefetch) {
+			this.coordinator = coordinator;
+			this.prefetch = prefetch;
+			this.limit = prefetch - (prefetch >> 2);
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			upstream = subscription;
+			if (cancelled) {
+				subscription.cancel();
+			} else {
+				subscription.request(prefetch);
+			}
+		}
+
+		@Override
+		public void onNext(T item) {
+			queue.offer(item);
+			coordinator.drain();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			done = true;
+			coordinator.drain();
+		}
+
+		@Override
+		public void onComplete() {
+			done = true;
+			coordinator.drain();
+		}
+
+		void consumed() {
+			if (++consumed == limit) {
+				consumed = 0;
+				upstream.request(limit);
+			}
+		}
+
+		void cancel() {
+			cancelled = true;
+			Subscription subscription = upstream;
+			if (subscription != null) {
+				subscription.cancel();
+			}
+		}
+	}
+}
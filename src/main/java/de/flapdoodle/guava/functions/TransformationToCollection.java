@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.functions;
+
+import java.util.Collection;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+public final class TransformationToCollection<S, D> implements Function<S, Collection<? extends D>> {
+
+	private final Function<S, D> transformation;
+
+	public TransformationToCollection(Function<S, D> transformation) {
+		this.transformation = Preconditions.checkNotNull(transformation, "transformation is null");
+	}
+
+	public Function<S, D> transformation() {
+		return transformation;
+	}
+
+	@Override
+	public Collection<? extends D> apply(S input) {
+		return ImmutableList.of(transformation.apply(input));
+	}
+}
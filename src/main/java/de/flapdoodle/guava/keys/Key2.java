@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.keys;
+
+import com.google.common.base.Objects;
+
+/**
+ * composite key with a hash computed once, equals rejects on the hash before comparing the fields
+ */
+public final class Key2<A, B> {
+
+	private final A a;
+	private final B b;
+	private final int hash;
+
+	private Key2(A a, B b) {
+		this.a = a;
+		this.b = b;
+		this.hash = 31 * hash(a) + hash(b);
+	}
+
+	public static <A, B> Key2<A, B> of(A a, B b) {
+		return new Key2<A, B>(a, b);
+	}
+
+	public A a() {
+		return a;
+	}
+
+	public B b() {
+		return b;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Key2)) {
+			return false;
+		}
+		Key2<?, ?> other = (Key2<?, ?>) obj;
+		return hash == other.hash && Objects.equal(a, other.a) && Objects.equal(b, other.b);
+	}
+
+	@Override
+	public String toString() {
+		return "Key2[" + a + ", " + b + "]";
+	}
+
+	static int hash(Object value) {
+		return value != null
+				? value.hashCode()
+				: 0;
+	}
+}
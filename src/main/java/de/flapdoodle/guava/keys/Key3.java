@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.keys;
+
+import com.google.common.base.Objects;
+
+/**
+ * composite key with a hash computed once, equals rejects on the hash before comparing the fields
+ */
+public final class Key3<A, B, C> {
+
+	private final A a;
+	private final B b;
+	private final C c;
+	private final int hash;
+
+	private Key3(A a, B b, C c) {
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.hash = 31 * (31 * Key2.hash(a) + Key2.hash(b)) + Key2.hash(c);
+	}
+
+	public static <A, B, C> Key3<A, B, C> of(A a, B b, C c) {
+		return new Key3<A, B, C>(a, b, c);
+	}
+
+	public A a() {
+		return a;
+	}
+
+	public B b() {
+		return b;
+	}
+
+	public C c() {
+		return c;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Key3)) {
+			return false;
+		}
+		Key3<?, ?, ?> other = (Key3<?, ?, ?>) obj;
+		return hash == other.hash && Objects.equal(a, other.a) && Objects.equal(b, other.b) && Objects.equal(c, other.c);
+	}
+
+	@Override
+	public String toString() {
+		return "Key3[" + a + ", " + b + ", " + c + "]";
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.keys;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+
+import de.flapdoodle.guava.functions.ToIntFunction;
+import de.flapdoodle.guava.functions.ToLongFunction;
+
+/**
+ * key transformations for grouping by more than one field, a replacement for (nested) Pair keys
+ */
+public abstract class Keys {
+
+	private Keys() {
+		// no instance
+	}
+
+	public static <T, A, B> Function<T, Key2<A, B>> of(final Function<? super T, A> a, final Function<? super T, B> b) {
+		Preconditions.checkNotNull(a, "a is null");
+		Preconditions.checkNotNull(b, "b is null");
+		return new Function<T, Key2<A, B>>() {
+
+			@Override
+			public Key2<A, B> apply(T input) {
+				return Key2.of(a.apply(input), b.apply(input));
+			}
+		};
+	}
+
+	public static <T, A, B, C> Function<T, Key3<A, B, C>> of(final Function<? super T, A> a, final Function<? super T, B> b,
+			final Function<? super T, C> c) {
+		Preconditions.checkNotNull(a, "a is null");
+		Preconditions.checkNotNull(b, "b is null");
+		Preconditions.checkNotNull(c, "c is null");
+		return new Function<T, Key3<A, B, C>>() {
+
+			@Override
+			public Key3<A, B, C> apply(T input) {
+				return Key3.of(a.apply(input), b.apply(input), c.apply(input));
+			}
+		};
+	}
+
+	public static <T> Function<T, PackedKey> packed(ToIntFunction<? super T> a, ToIntFunction<? super T> b) {
+		final ToLongFunction<T> packed = packedLong(a, b);
+		return new Function<T, PackedKey>() {
+
+			@Override
+			public PackedKey apply(T input) {
+				return PackedKey.of(packed.applyAsLong(input));
+			}
+		};
+	}
+
+	/**
+	 * without any key object, e.g. for Transformations.distinctBy(source, ToLongFunction)
+	 */
+	public static <T> ToLongFunction<T> packedLong(final ToIntFunction<? super T> a, final ToIntFunction<? super T> b) {
+		Preconditions.checkNotNull(a, "a is null");
+		Preconditions.checkNotNull(b, "b is null");
+		return new ToLongFunction<T>() {
+
+			@Override
+			public long applyAsLong(T value) {
+				return PackedKey.pack(a.applyAsInt(value), b.applyAsInt(value));
+			}
+		};
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.keys;
+
+/**
+ * two int fields packed into one long, equals is a single long compare
+ */
+public final class PackedKey {
+
+	private final long value;
+
+	private PackedKey(long value) {
+		this.value = value;
+	}
+
+	public static PackedKey of(int a, int b) {
+		return new PackedKey(pack(a, b));
+	}
+
+	public static PackedKey of(long packed) {
+		return new PackedKey(packed);
+	}
+
+	public static long pack(int a, int b) {
+		return ((long) a << 32) | (b & 0xFFFFFFFFL);
+	}
+
+	public static int a(long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	public static int b(long packed) {
+		return (int) packed;
+	}
+
+	public int a() {
+		return a(value);
+	}
+
+	public int b() {
+		return b(value);
+	}
+
+	public long value() {
+		return value;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return this == obj || (obj instanceof PackedKey && ((PackedKey) obj).value == value);
+	}
+
+	@Override
+	public String toString() {
+		return "PackedKey[" + a() + ", " + b() + "]";
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.base.Equivalence;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Ordering;
+
+public class DiffsTest {
+
+	ImmutableList<String> before = ImmutableList.of("a=1", "b=2", "c=3", "e=5");
+	ImmutableList<String> after = ImmutableList.of("a=1", "b=3", "d=4", "e=5", "f=6");
+
+	@Test
+	public void diffShouldFindAddedRemovedAndChanged() {
+		Diff<String> diff = Diffs.diff(before, after, new Id(), Equivalence.equals());
+
+		assertEquals("[d=4, f=6]", diff.added().toString());
+		assertEquals("[c=3]", diff.removed().toString());
+		assertEquals("[Pair[b=2, b=3]]", diff.changed().toString());
+		assertTrue(Diffs.diff(before, before, new Id(), Equivalence.equals()).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void diffShouldFailOnDuplicateKeys() {
+		Diffs.diff(before, ImmutableList.of("a=1", "a=2"), new Id(), Equivalence.equals());
+	}
+
+	@Test
+	public void sortedDiffShouldStreamChangesInKeyOrder() {
+		Iterable<Change<String>> changes = Diffs.diffSorted(before, after, new Id(), Ordering.natural(), Equivalence.equals());
+
+		assertEquals("[b=2->b=3, -c=3, +d=4, +f=6]", changes.toString());
+		assertEquals(Change.Type.CHANGED, Iterables.get(changes, 0).type());
+	}
+
+	@Test
+	public void sortedDiffShouldBeLazy() {
+		Iterable<Change<String>> changes = Diffs.diffSorted(before, Iterables.concat(after, Iterables.cycle("z=0")), new Id(),
+				Ordering.natural(), Equivalence.equals());
+
+		assertEquals("+f=6", Iterables.get(changes, 3).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sortedDiffShouldFailOnUnsortedInput() {
+		ImmutableList.copyOf(Diffs.diffSorted(before, ImmutableList.of("b=1", "a=1"), new Id(), Ordering.natural(),
+				Equivalence.equals()));
+	}
+
+	static class Id implements Function<String, String> {
+
+		@Override
+		public String apply(String input) {
+			return input.substring(0, input.indexOf('='));
+		}
+	}
+}
@@ -18,11 +18,24 @@ package de.flapdoodle.guava;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.Test;
 
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import de.flapdoodle.guava.functions.LongBinaryOperator;
+import de.flapdoodle.guava.functions.ToLongFunction;
 
 public class FlatterTest {
 
@@ -46,6 +59,228 @@ public class FlatterTest {
 		assertEquals("a2:b4:c6", textOf(last));
 	}
 
+	@Test
+	public void flatOfListChildrenShouldGiveSizedRandomAccessList() {
+		A a = new A("a1", ImmutableList.of(new B("b1", ImmutableList.<C> of()), new B("b2", ImmutableList.<C> of())));
+
+		Iterable<? extends Flat<A, B>> result = Flatter.<A, B> flat(A.asSub).apply(a);
+
+		assertTrue(result instanceof RandomAccess);
+		assertEquals(2, ((List<?>) result).size());
+		assertEquals("b2", ((List<? extends Flat<A, B>>) result).get(1).value().text());
+	}
+
+	@Test
+	public void visitShouldSeeAllPairsInFlatOrder() {
+		final StringBuilder sb = new StringBuilder();
+		Flatter.visit(sample(), A.asSub, new FlatVisitor<A, B>() {
+
+			@Override
+			public void visit(A parent, B value) {
+				sb.append(parent.text()).append(":").append(value.text()).append(" ");
+			}
+		});
+
+		assertEquals("a1:b1 a2:b3 a2:b4 a3:b5 ", sb.toString());
+	}
+
+	@Test
+	public void cursorShouldBeReusedForAllPairs() {
+		ImmutableList<A> a = sample();
+		FlatCursor<A, B> cursor = Flatter.cursor(FluentIterable.from(a), A.asSub);
+
+		List<String> texts = Lists.newArrayList();
+		Flat<A, B> materialized = null;
+		while (cursor.next()) {
+			texts.add(cursor.parent().text() + ":" + cursor.value().text());
+			if (cursor.value().text().equals("b4")) {
+				materialized = cursor.materialize();
+			}
+		}
+
+		assertEquals("[a1:b1, a2:b3, a2:b4, a3:b5]", texts.toString());
+		assertEquals("a2", materialized.parent().text());
+		assertFalse(cursor.next());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void cursorShouldFailIfNotPositioned() {
+		Flatter.cursor(sample(), A.asSub).value();
+	}
+
+	@Test
+	public void deepFlatShouldGiveOneRowPerLeafWithAllAncestors() {
+		FlatPaths paths = Flatter.deep(sample(), ImmutableList.<Function<?, ? extends Iterable<?>>> of(A.asSub, B.asSub));
+
+		assertEquals(3, paths.depth());
+		assertEquals(6, paths.size());
+		assertEquals("a2", ((A) paths.get(5, 0)).text());
+		assertEquals("b4", ((B) paths.get(5, 1)).text());
+		assertEquals("c6", paths.<C> column(2).get(5).text());
+		assertEquals(6, paths.rows().size());
+		assertEquals("b1", ((B) paths.rows().get(2)[1]).text());
+		try {
+			paths.<C> column(2).set(0, new C("x"));
+			fail("should not reach this");
+		} catch (UnsupportedOperationException ux) {
+			// expected
+		}
+		try {
+			paths.get(0, 3);
+			fail("should not reach this");
+		} catch (IndexOutOfBoundsException ix) {
+			assertTrue(ix.getMessage().startsWith("level"));
+		}
+	}
+
+	@Test
+	public void parallelDeepFlatShouldMatchSequentialOrder() {
+		ImmutableList<A> a = wideSample();
+		ImmutableList<Function<?, ? extends Iterable<?>>> subs = ImmutableList.<Function<?, ? extends Iterable<?>>> of(A.asSub, B.asSub);
+		FlatPaths sequential = Flatter.deep(a, subs);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			FlatPaths ordered = Flatter.deep(a, subs, pool, FlatOrder.DEPTH_FIRST);
+			assertEquals(sequential.size(), ordered.size());
+			for (int level = 0; level < sequential.depth(); level++) {
+				assertEquals(sequential.column(level), ordered.column(level));
+			}
+
+			FlatPaths unordered = Flatter.deep(a, subs, pool, FlatOrder.UNORDERED);
+			assertEquals(HashMultiset.create(sequential.column(2)), HashMultiset.create(unordered.column(2)));
+
+			ImmutableList<Flat<A, B>> flat = Flatter.flat(a, A.asSub, pool, FlatOrder.DEPTH_FIRST);
+			assertEquals(ImmutableList.copyOf(FluentIterable.from(a).transformAndConcat(Flatter.flat(A.asSub))).size(), flat.size());
+			assertEquals("b199", flat.get(flat.size() - 1).value().text());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void columnsShouldKeepParentIndexAndChildren() {
+		FlatColumns<A, B> columns = Flatter.columns(sample(), A.asSub);
+
+		assertEquals(3, columns.parentCount());
+		assertEquals(4, columns.size());
+		assertEquals(1, columns.parentIndex(2));
+		assertEquals("a2", columns.parent(2).text());
+		assertEquals("b4", columns.value(2).text());
+		assertEquals("b4", columns.rows().get(2).value().text());
+		assertEquals(Integer.valueOf(4), columns.foldLeft(new Foldleft<B, Integer>() {
+
+			@Override
+			public Integer apply(Integer left, B right) {
+				return left + 1;
+			}
+		}, 0));
+	}
+
+	@Test
+	public void longColumnsShouldFoldWithoutChildReferences() {
+		ToLongFunction<B> children = new ToLongFunction<B>() {
+
+			@Override
+			public long applyAsLong(B value) {
+				return Iterables.size(value.sub());
+			}
+		};
+		FlatColumns<A, B> columns = Flatter.columns(sample(), A.asSub, ImmutableList.of(children));
+		LongBinaryOperator sum = new LongBinaryOperator() {
+
+			@Override
+			public long applyAsLong(long left, long right) {
+				return left + right;
+			}
+		};
+
+		assertEquals(6, columns.foldLong(0, sum, 0));
+		assertEquals("[3, 3, 0]", Arrays.toString(columns.foldLongByParent(0, sum, 0)));
+		assertEquals(2, columns.getLong(2, 0));
+		try {
+			columns.foldLong(1, sum, 0);
+			fail("should not reach this");
+		} catch (IndexOutOfBoundsException ix) {
+			assertTrue(ix.getMessage().startsWith("column"));
+		}
+		try {
+			columns.value(0);
+			fail("should not reach this");
+		} catch (IllegalStateException isx) {
+			// expected
+		}
+	}
+
+	@Test
+	public void parallelDeepFlatShouldSplitSmallFanOutWithExpensiveLeaves() {
+		ImmutableList.Builder<A> builder = ImmutableList.builder();
+		for (int i = 0; i < 2; i++) {
+			ImmutableList.Builder<B> b = ImmutableList.builder();
+			for (int j = 0; j < 8; j++) {
+				ImmutableList.Builder<C> c = ImmutableList.builder();
+				for (int k = 0; k < 50; k++) {
+					c.add(new C("c" + i + "-" + j + "-" + k));
+				}
+				b.add(new B("b" + i + "-" + j, c.build()));
+			}
+			builder.add(new A("a" + i, b.build()));
+		}
+		ImmutableList<A> a = builder.build();
+
+		final Set<Thread> threads = Sets.newConcurrentHashSet();
+		Function<B, Iterable<? extends C>> slowLeaves = new Function<B, Iterable<? extends C>>() {
+
+			@Override
+			public Iterable<? extends C> apply(B input) {
+				threads.add(Thread.currentThread());
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException ix) {
+					Thread.currentThread().interrupt();
+				}
+				return input.sub();
+			}
+		};
+		ImmutableList<Function<?, ? extends Iterable<?>>> subs = ImmutableList.<Function<?, ? extends Iterable<?>>> of(A.asSub, slowLeaves);
+
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			FlatPaths result = Flatter.deep(a, subs, pool, FlatOrder.DEPTH_FIRST);
+			assertEquals(800, result.size());
+			assertFalse(threads.contains(Thread.currentThread()));
+			assertTrue("threads: " + threads.size(), threads.size() > 1);
+			assertEquals(Flatter.deep(a, subs).column(2), result.column(2));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static ImmutableList<A> wideSample() {
+		ImmutableList.Builder<A> builder = ImmutableList.builder();
+		for (int i = 0; i < 200; i++) {
+			ImmutableList.Builder<B> b = ImmutableList.builder();
+			int bs = i % 10 == 0 ? 100 : 2;
+			for (int j = 0; j < bs; j++) {
+				ImmutableList.Builder<C> c = ImmutableList.builder();
+				int cs = j % 50 == 0 ? 300 : j % 3;
+				for (int k = 0; k < cs; k++) {
+					c.add(new C("c" + i + "-" + j + "-" + k));
+				}
+				b.add(new B("b" + i, c.build()));
+			}
+			builder.add(new A("a" + i, b.build()));
+		}
+		return builder.build();
+	}
+
+	private static ImmutableList<A> sample() {
+		return ImmutableList.<A> builder()
+				.add(new A("a1", ImmutableList.of(new B("b1", ImmutableList.of(new C("c1"), new C("c2"), new C("c3"))))))
+				.add(new A("a2", ImmutableList.of(new B("b3", ImmutableList.of(new C("c4"))),new B("b4", ImmutableList.of(new C("c5"), new C("c6"))))))
+				.add(new A("a3", ImmutableList.of(new B("b5", ImmutableList.<C> of())))).build();
+	}
+
 	private String textOf(Flat<Flat<A, B>, C> e) {
 		return e.parent().parent().text() + ":" + e.parent().value().text() + ":" + e.value().text();
 	}
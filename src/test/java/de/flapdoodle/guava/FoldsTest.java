@@ -17,11 +17,15 @@
 package de.flapdoodle.guava;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
@@ -31,6 +35,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
 import de.flapdoodle.guava.Folds.CollectingFold;
@@ -147,6 +152,128 @@ public class FoldsTest {
 		foldUseCases(new Folds.ImmutableSetFold<String>(), setTestSet());
 	}
 
+	@Test
+	public void parallelFoldWithListCollectorShouldKeepOrder() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 200000; i++) {
+			source.add(i);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			FoldCollector<Integer, ?, ImmutableList<? extends Integer>> collector = Folds.asListCollector(Transformations.<Integer> asCollection());
+			assertFalse(collector.characteristics().contains(FoldCollector.Characteristics.IDENTITY_FINISH));
+			ImmutableList<? extends Integer> result = Folds.foldLeft(source, collector, pool);
+			assertEquals(source, result);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelFoldWithSetCollectorShouldDetectCollisionsAcrossChunks() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 1000; i++) {
+			source.add(i);
+		}
+		source.add(0);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			FoldCollector<Integer, ?, ImmutableSet<? extends Integer>> collector = Folds.asSetCollector(Transformations.<Integer> asCollection());
+			assertEquals(EnumSet.of(FoldCollector.Characteristics.UNORDERED), collector.characteristics());
+			Folds.foldLeft(source, collector, pool);
+			fail("should not reach this");
+		} catch (IllegalArgumentException iax) {
+			// expected
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void enumSetCollectorShouldCombinePartialResults() {
+		FoldCollector<DummyEnum, EnumSet<DummyEnum>, EnumSet<DummyEnum>> collector = Folds.asEnumSetCollector(DummyEnum.class, Transformations.<DummyEnum> asCollection());
+		EnumSet<DummyEnum> left = collector.accumulator().apply(collector.supplier().get(), DummyEnum.A);
+		EnumSet<DummyEnum> right = collector.accumulator().apply(collector.supplier().get(), DummyEnum.C);
+		assertEquals(EnumSet.of(DummyEnum.A, DummyEnum.C), collector.combiner().apply(left, right));
+	}
+
+	@Test
+	public void mapCollectorShouldFailIfKeyCollidesAcrossChunks() {
+		List<String> source = Lists.newArrayList("Achim");
+		for (int i = 0; i < 100; i++) {
+			source.add("X" + i);
+		}
+		source.add("Arnim");
+		Function<String, String> keyTransformation = new Function<String, String>() {
+
+			@Override
+			public String apply(String input) {
+				return input.startsWith("A")
+						? "A"
+						: input;
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			List<String> withoutCollision = source.subList(0, 101);
+			assertEquals(Transformations.map(withoutCollision, keyTransformation),
+					Folds.foldLeft(withoutCollision, Transformations.asMapCollector(keyTransformation, Transformations.<String> noop()), pool));
+			Folds.foldLeft(source, Transformations.asMapCollector(keyTransformation, Transformations.<String> noop()), pool);
+			fail("should not reach this");
+		} catch (IllegalArgumentException iax) {
+			// expected
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void topNShouldKeepBiggestAndFirstOfEqualKeys() {
+		Function<String, Integer> length = new Function<String, Integer>() {
+
+			@Override
+			public Integer apply(String input) {
+				return input.length();
+			}
+		};
+		TopN<String> topN = Folds.foldLeft(ImmutableList.of("aa", "b", "cc", "dddd", "ee", "f"), Folds.topNFold(3, length, Ordering.natural()), null);
+		assertEquals("[dddd, aa, cc]", topN.sorted().toString());
+
+		TopN<String> left = Folds.foldLeft(ImmutableList.of("b", "cc"), Folds.topNFold(2, length, Ordering.natural()), null);
+		TopN<String> right = Folds.foldLeft(ImmutableList.of("aa", "f"), Folds.topNFold(2, length, Ordering.natural()), null);
+		assertEquals("[cc, aa]", left.merge(right).sorted().toString());
+	}
+
+	@Test
+	public void parallelTopNPerKeyShouldMatchSequential() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 1000; i++) {
+			source.add(i);
+		}
+		Function<Integer, Integer> modSeven = new Function<Integer, Integer>() {
+
+			@Override
+			public Integer apply(Integer input) {
+				return input % 7;
+			}
+		};
+		Map<Integer, ImmutableList<Integer>> sequential = Transformations.topN(source, modSeven, 3, Transformations.<Integer> noop(),
+				Ordering.natural());
+		assertEquals(ImmutableList.of(994, 987, 980), sequential.get(0));
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Map<Integer, TopN<Integer>> parallel = Folds.foldLeft(source, Transformations.asMapCollector(modSeven,
+					Folds.topNFold(3, Transformations.<Integer> noop(), Ordering.natural()), Folds.<Integer> topNCombiner()), pool);
+			assertEquals(sequential.keySet(), parallel.keySet());
+			for (Integer key : sequential.keySet()) {
+				assertEquals(sequential.get(key), parallel.get(key).sorted());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	@Test
 	public void enumSetFoldUseCases() {
 		foldUseCases(new Folds.EnumSetFold<DummyEnum>(DummyEnum.class), enumsetTestSet());
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+
+import de.flapdoodle.guava.GroupingSets.Rollup2;
+import de.flapdoodle.guava.GroupingSets.Rollup3;
+import de.flapdoodle.guava.functions.BiFunction;
+
+public class GroupingSetsTest {
+
+	ImmutableList<String> source = ImmutableList.of("Aa1", "Aa2", "Ab1", "Ba1", "Ba1", "Cc3");
+
+	@Test
+	public void everyLevelShouldBeFoldedInOnePass() {
+		CountingCharAt first = new CountingCharAt(0);
+		CountingCharAt second = new CountingCharAt(1);
+		Rollup2<Character, Character, Integer> result = GroupingSets.rollup(source, first, second, new Count());
+
+		assertEquals(6, first.calls);
+		assertEquals(6, second.calls);
+		assertEquals(Integer.valueOf(6), result.total());
+		assertEquals(Integer.valueOf(3), result.byFirst().get('A'));
+		assertEquals(Integer.valueOf(2), result.byFirst().get('B'));
+		assertEquals(Integer.valueOf(2), result.byFirstAndSecond().get('A').get('a'));
+		assertEquals(Integer.valueOf(1), result.byFirstAndSecond().get('A').get('b'));
+		assertEquals(Integer.valueOf(1), result.byFirstAndSecond().get('C').get('c'));
+	}
+
+	@Test
+	public void combinerShouldRollUpFromFinestLevel() {
+		Rollup3<Character, Character, Character, Integer> result = GroupingSets.rollup(source, new CountingCharAt(0),
+				new CountingCharAt(1), new CountingCharAt(2), new Count(), new Sum());
+
+		assertEquals(Integer.valueOf(6), result.total());
+		assertEquals(Integer.valueOf(3), result.byFirst().get('A'));
+		assertEquals(Integer.valueOf(2), result.byFirstAndSecond().get('B').get('a'));
+		assertEquals(Integer.valueOf(2), result.byFirstSecondAndThird().get('B').get('a').get('1'));
+		assertEquals(Integer.valueOf(1), result.byFirstSecondAndThird().get('A').get('a').get('2'));
+		assertEquals(2, result.byFirstSecondAndThird().get('A').get('a').size());
+	}
+
+	@Test
+	public void emptySourceShouldGiveNoGroups() {
+		Rollup2<Character, Character, Integer> result = GroupingSets.rollup(ImmutableList.<String> of(), new CountingCharAt(0),
+				new CountingCharAt(1), new Count(), new Sum());
+
+		assertNull(result.total());
+		assertEquals(0, result.byFirst().size());
+	}
+
+	static class CountingCharAt implements Function<String, Character> {
+
+		private final int index;
+		int calls = 0;
+
+		CountingCharAt(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Character apply(String input) {
+			calls++;
+			return input.charAt(index);
+		}
+	}
+
+	static class Count implements Foldleft<String, Integer> {
+
+		@Override
+		public Integer apply(Integer left, String right) {
+			return left != null
+					? left + 1
+					: 1;
+		}
+	}
+
+	static class Sum implements BiFunction<Integer, Integer, Integer> {
+
+		@Override
+		public Integer apply(Integer a, Integer b) {
+			return a + b;
+		}
+	}
+}
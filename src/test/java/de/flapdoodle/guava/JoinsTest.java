@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+public class JoinsTest {
+
+	ImmutableList<String> left = ImmutableList.of("A1", "B1", "B2", "D1");
+	ImmutableList<String> right = ImmutableList.of("a1", "b1", "b2", "c1", "e1");
+
+	@Test
+	public void innerJoinShouldGiveAllMatchingPairsInLeftOrder() {
+		assertEquals("[Pair[A1, a1], Pair[B1, b1], Pair[B1, b2], Pair[B2, b1], Pair[B2, b2]]",
+				Joins.join(JoinType.INNER, left, right, new FirstLetter(), new FirstLetter()).toString());
+	}
+
+	@Test
+	public void joinShouldGiveSameResultIfBuildSideChanges() {
+		ImmutableList<String> bigLeft = ImmutableList.<String> builder().addAll(left).add("E1", "E2", "F1").build();
+		assertEquals("[Pair[A1, a1], Pair[B1, b1], Pair[B1, b2], Pair[B2, b1], Pair[B2, b2], Pair[E1, e1], Pair[E2, e1]]",
+				Joins.join(JoinType.INNER, bigLeft, right, new FirstLetter(), new FirstLetter()).toString());
+		assertEquals("[Pair[A1, a1], Pair[B1, b1], Pair[B2, b1], Pair[D1, null], Pair[null, c1]]",
+				Joins.join(JoinType.FULL_OUTER, left, ImmutableList.of("a1", "b1", "c1"), new FirstLetter(), new FirstLetter()).toString());
+	}
+
+	@Test
+	public void probeSideShouldBeStreamedOnce() {
+		for (JoinType type : JoinType.values()) {
+			String expected = Joins.join(type, left, right, new FirstLetter(), new FirstLetter()).toString();
+			assertEquals(expected, Joins.join(type, onlyOnce(left), right, new FirstLetter(), new FirstLetter()).toString());
+			assertEquals(expected, Joins.join(type, left, onlyOnce(right), new FirstLetter(), new FirstLetter()).toString());
+		}
+	}
+
+	private static <T> Iterable<T> onlyOnce(Iterable<T> source) {
+		final Iterator<T> iterator = source.iterator();
+		return new Iterable<T>() {
+
+			boolean called = false;
+
+			@Override
+			public Iterator<T> iterator() {
+				assertFalse("iterated twice", called);
+				called = true;
+				return iterator;
+			}
+		};
+	}
+
+	@Test
+	public void leftOuterJoinShouldKeepUnmatchedLeft() {
+		assertEquals("[Pair[A1, a1], Pair[B1, b1], Pair[B1, b2], Pair[B2, b1], Pair[B2, b2], Pair[D1, null]]",
+				Joins.join(JoinType.LEFT_OUTER, left, right, new FirstLetter(), new FirstLetter()).toString());
+	}
+
+	@Test
+	public void fullOuterJoinShouldKeepUnmatchedOfBothSides() {
+		assertEquals("[Pair[A1, a1], Pair[B1, b1], Pair[B1, b2], Pair[B2, b1], Pair[B2, b2], Pair[D1, null], Pair[null, c1], Pair[null, e1]]",
+				Joins.join(JoinType.FULL_OUTER, left, right, new FirstLetter(), new FirstLetter()).toString());
+	}
+
+	@Test
+	public void sortedJoinShouldGiveSameResultAsHashJoinForInnerAndLeftOuter() {
+		for (JoinType type : new JoinType[] { JoinType.INNER, JoinType.LEFT_OUTER }) {
+			assertEquals(Joins.join(type, left, right, new FirstLetter(), new FirstLetter()).toString(),
+					Joins.sortedJoin(type, left, right, new FirstLetter(), new FirstLetter(), Ordering.natural()).toString());
+		}
+	}
+
+	@Test
+	public void sortedFullOuterJoinShouldInterleaveUnmatchedInKeyOrder() {
+		assertEquals("[Pair[A1, a1], Pair[B1, b1], Pair[B1, b2], Pair[B2, b1], Pair[B2, b2], Pair[null, c1], Pair[D1, null], Pair[null, e1]]",
+				Joins.sortedJoin(JoinType.FULL_OUTER, left, right, new FirstLetter(), new FirstLetter(), Ordering.natural()).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sortedJoinShouldFailIfNotSorted() {
+		ImmutableList.copyOf(Joins.sortedJoin(JoinType.INNER, ImmutableList.of("B1", "A1"), right, new FirstLetter(), new FirstLetter(),
+				Ordering.natural()));
+	}
+
+	@Test
+	public void batchedLookupShouldCallLoaderOncePerBatchWithDistinctKeys() {
+		final List<Set<String>> calls = Lists.newArrayList();
+		Iterable<Pair<String, Integer>> result = Joins.batchedLookup(ImmutableList.of("A1", "B1", "A2", "C1", "D1"), new FirstLetter(),
+				new Function<Set<String>, Map<String, Integer>>() {
+
+					@Override
+					public Map<String, Integer> apply(Set<String> keys) {
+						calls.add(ImmutableSet.copyOf(keys));
+						Map<String, Integer> ret = Maps.newHashMap();
+						for (String key : keys) {
+							if (!key.equals("c")) {
+								ret.put(key, (int) key.charAt(0));
+							}
+						}
+						return ret;
+					}
+				}, 3);
+
+		assertEquals("[Pair[A1, 97], Pair[B1, 98], Pair[A2, 97], Pair[C1, null], Pair[D1, 100]]", result.toString());
+		assertEquals("[[a, b], [c, d]]", calls.toString());
+	}
+
+	static class FirstLetter implements Function<String, String> {
+
+		@Override
+		public String apply(String input) {
+			return input.substring(0, 1).toLowerCase();
+		}
+	}
+}
@@ -18,6 +18,8 @@ package de.flapdoodle.guava;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
+
 import org.junit.Test;
 
 import com.google.common.base.Equivalence;
@@ -27,6 +29,9 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
 
 public class MergerTest {
 
@@ -46,6 +51,110 @@ public class MergerTest {
 		assertEquals("[1, 2, 8, 20, 0, 3]", result.toString());
 	}
 
+	@Test
+	public void rightElementsShouldOnlyBeMergedIntoFirstMatchingLeft() {
+		ImmutableList<Integer> result = Merger.merge(ImmutableList.of(1, 1, 2), ImmutableList.of(1, 3, 1), Equivalence.equals(), new Sum());
+
+		assertEquals("[2, 2, 1, 2, 3]", result.toString());
+	}
+
+	@Test
+	public void mergeByKeyShouldMatchEquivalenceMerge() {
+		ImmutableList<String> left = ImmutableList.of("a1", "b1", "c1");
+		ImmutableList<String> right = ImmutableList.of("x2", "b2", "d2", "a2");
+
+		ImmutableList<String> result = Merger.merge(left, right, new Function<String, Character>() {
+
+			@Override
+			public Character apply(String input) {
+				return input.charAt(0);
+			}
+		}, new Foldleft<String, String>() {
+
+			@Override
+			public String apply(String left, String right) {
+				return left + right;
+			}
+		});
+
+		assertEquals("[a1a2, b1b2, c1, x2, d2]", result.toString());
+	}
+
+	@Test
+	public void mergeOfBigListsShouldBeLinear() {
+		List<Integer> left = Lists.newArrayList();
+		List<Integer> right = Lists.newArrayList();
+		for (int i = 0; i < 50000; i++) {
+			left.add(i * 2);
+			right.add(i * 3);
+		}
+
+		ImmutableList<Integer> result = Merger.merge(left, right, Equivalence.equals(), new Sum());
+
+		// multiples of 6 match
+		assertEquals(100000 - 16667, result.size());
+		assertEquals(Integer.valueOf(12), result.get(3));
+	}
+
+	@Test
+	public void mergeSortedShouldFoldMatchesLikeMerge() {
+		ImmutableList<Integer> left = ImmutableList.of(1, 1, 2, 4, 10);
+		ImmutableList<Integer> right = ImmutableList.of(0, 1, 1, 3, 4, 10, 11);
+
+		Iterable<Integer> result = Merger.mergeSorted(left, right, Ordering.natural(), new Sum());
+
+		assertEquals("[0, 2, 2, 1, 2, 3, 8, 20, 11]", result.toString());
+		assertEquals(ImmutableSet.copyOf(Merger.merge(left, right, Equivalence.equals(), new Sum())), ImmutableSet.copyOf(result));
+	}
+
+	@Test
+	public void mergeSortedShouldBeLazy() {
+		Iterable<Integer> infinite = Iterables.cycle(5);
+		Iterable<Integer> result = Merger.mergeSorted(ImmutableList.of(1, 5), infinite, Ordering.natural(), new Sum());
+
+		assertEquals("[1, 10, 10, 10]", Iterables.toString(Iterables.limit(result, 4)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mergeSortedShouldFailOnUnsortedInput() {
+		ImmutableList.copyOf(Merger.mergeSorted(ImmutableList.of(1, 3), ImmutableList.of(2, 1), Ordering.natural(), new Sum()));
+	}
+
+	@Test
+	public void mergeAllSortedShouldKeepSourceOrderForEqualElements() {
+		ImmutableList<String> a = ImmutableList.of("a1", "c1");
+		ImmutableList<String> b = ImmutableList.<String> of();
+		ImmutableList<String> c = ImmutableList.of("a3", "b3", "c3", "d3");
+		ImmutableList<String> d = ImmutableList.of("b4");
+		Ordering<String> firstChar = Ordering.natural().onResultOf(new Function<String, Character>() {
+
+			@Override
+			public Character apply(String input) {
+				return input.charAt(0);
+			}
+		});
+
+		Iterable<String> result = Merger.mergeAllSorted(ImmutableList.of(a, b, c, d), firstChar);
+		assertEquals("[a1, a3, b3, b4, c1, c3, d3]", result.toString());
+
+		Iterable<String> folded = Merger.mergeAllSorted(ImmutableList.of(a, b, c, d), firstChar, new Foldleft<String, String>() {
+
+			@Override
+			public String apply(String left, String right) {
+				return left + right;
+			}
+		});
+		assertEquals("[a1a3, b3b4, c1c3, d3]", folded.toString());
+	}
+
+	@Test
+	public void mergeAllSortedShouldBeLazy() {
+		Iterable<Integer> result = Merger.mergeAllSorted(ImmutableList.of(Iterables.cycle(2), ImmutableList.of(1, 3)),
+				Ordering.natural());
+
+		assertEquals("[1, 2, 2]", Iterables.toString(Iterables.limit(result, 3)));
+	}
+
 	@Test
 	public void removeEvenNumbersIfInSet() {
 		ImmutableList<Integer> src = ImmutableList.of(1, 2, 3, 4, 5, 10);
@@ -70,4 +179,12 @@ public class MergerTest {
 		
 		assertEquals("[1, 3, 4, 5]", removed.toString());
 	}
+
+	static class Sum implements Foldleft<Integer, Integer> {
+
+		@Override
+		public Integer apply(Integer left, Integer right) {
+			return left + right;
+		}
+	}
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+
+public class PipelineTest {
+
+	@Test
+	public void pipelineShouldApplyStagesInOrder() {
+		Pipeline<String, Integer> pipeline = Pipeline.<String> start()
+				.filter(new Predicate<String>() {
+
+					@Override
+					public boolean apply(String input) {
+						return !input.isEmpty();
+					}
+				})
+				.flatmap(new Function<String, List<Character>>() {
+
+					@Override
+					public List<Character> apply(String input) {
+						ImmutableList.Builder<Character> builder = ImmutableList.builder();
+						for (char c : input.toCharArray()) {
+							builder.add(c);
+						}
+						return builder.build();
+					}
+				})
+				.map(new Function<Character, Integer>() {
+
+					@Override
+					public Integer apply(Character input) {
+						return input - 'a';
+					}
+				});
+
+		ImmutableList<String> source = ImmutableList.of("abc", "", "ad");
+		assertEquals("[0, 1, 2, 0, 3]", pipeline.toList(source).toString());
+		assertEquals(Integer.valueOf(6), pipeline.foldLeft(source, new Foldleft<Integer, Integer>() {
+
+			@Override
+			public Integer apply(Integer left, Integer right) {
+				return left + right;
+			}
+		}, 0));
+	}
+
+	@Test
+	public void emptyPipelineShouldGiveSource() {
+		assertEquals("[A, B]", Pipeline.<String> start().toList(ImmutableList.of("A", "B")).toString());
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+
+public class SamplingTest {
+
+	ImmutableList<Integer> source = ContiguousSet.create(Range.closedOpen(0, 1000), DiscreteDomain.integers()).asList();
+
+	@Test
+	public void reservoirShouldKeepAtMostKDistinctElements() {
+		Reservoir<Integer> result = Sampling.reservoir(source, 10, new Random(1));
+
+		assertEquals(1000, result.seen());
+		assertEquals(10, result.sample().size());
+		assertEquals(10, ImmutableSet.copyOf(result.sample()).size());
+		assertTrue(source.containsAll(result.sample()));
+	}
+
+	@Test
+	public void smallSourceShouldBeSampledCompletely() {
+		Reservoir<Integer> result = Sampling.reservoir(ImmutableList.of(1, 2, 3), 10, new Random(1));
+
+		assertEquals("[1, 2, 3]", result.sample().toString());
+	}
+
+	@Test
+	public void emptySourceShouldGiveEmptyReservoir() {
+		Reservoir<Integer> empty = Sampling.reservoir(ImmutableList.<Integer> of(), 3, new Random(1));
+
+		assertEquals(0, empty.seen());
+		assertEquals("[]", empty.sample().toString());
+
+		Reservoir<Integer> merged = empty.merge(Sampling.reservoir(ImmutableList.of(1, 2), 3, new Random(1)));
+		assertEquals(2, merged.seen());
+		assertEquals(ImmutableSet.of(1, 2), ImmutableSet.copyOf(merged.sample()));
+	}
+
+	@Test
+	public void reservoirShouldBeUniform() {
+		Random random = new Random(2);
+		int[] hits = new int[10];
+		for (int i = 0; i < 10000; i++) {
+			for (Integer value : Sampling.reservoir(source.subList(0, 10), 2, random).sample()) {
+				hits[value]++;
+			}
+		}
+		for (int hit : hits) {
+			assertTrue("" + hit, hit > 1800 && hit < 2200);
+		}
+	}
+
+	@Test
+	public void mergedReservoirsShouldStayUniform() {
+		Random random = new Random(3);
+		int[] hits = new int[10];
+		for (int i = 0; i < 10000; i++) {
+			Reservoir<Integer> left = Sampling.reservoir(source.subList(0, 2), 2, random);
+			Reservoir<Integer> right = Sampling.reservoir(source.subList(2, 10), 2, random);
+			Reservoir<Integer> merged = left.merge(right);
+			assertEquals(10, merged.seen());
+			for (Integer value : merged.sample()) {
+				hits[value]++;
+			}
+		}
+		for (int hit : hits) {
+			assertTrue("" + hit, hit > 1800 && hit < 2200);
+		}
+	}
+
+	@Test
+	public void weightedSampleShouldPreferHeavyElements() {
+		Random random = new Random(4);
+		int heavy = 0;
+		for (int i = 0; i < 1000; i++) {
+			List<Integer> sample = Sampling.weighted(source.subList(0, 10), new WeightOfNine(), 1, random).sample();
+			assertEquals(1, sample.size());
+			if (sample.get(0) == 9) {
+				heavy++;
+			}
+		}
+		// weight 91 of 100
+		assertTrue("" + heavy, heavy > 880 && heavy < 940);
+	}
+
+	@Test
+	public void mergedWeightedReservoirShouldKeepK() {
+		Random random = new Random(5);
+		WeightedReservoir<Integer> left = Sampling.weighted(source.subList(0, 500), new WeightOfNine(), 5, random);
+		WeightedReservoir<Integer> right = Sampling.weighted(source.subList(500, 1000), new WeightOfNine(), 5, random);
+
+		assertEquals(5, ImmutableSet.copyOf(left.merge(right).sample()).size());
+	}
+
+	@Test
+	public void stratifiedSampleShouldKeepKPerKey() {
+		Map<Integer, Reservoir<Integer>> result = Sampling.stratified(source, new Mod(3), 4, new Random(6));
+
+		assertEquals(ImmutableSet.of(0, 1, 2), result.keySet());
+		for (Map.Entry<Integer, Reservoir<Integer>> entry : result.entrySet()) {
+			assertEquals(4, entry.getValue().sample().size());
+			for (Integer value : entry.getValue().sample()) {
+				assertEquals(entry.getKey().intValue(), value % 3);
+			}
+		}
+		assertEquals(334, result.get(0).seen());
+	}
+
+	static class WeightOfNine implements Function<Integer, Integer> {
+
+		@Override
+		public Integer apply(Integer input) {
+			return input == 9
+					? 91
+					: 1;
+		}
+	}
+
+	static class Mod implements Function<Integer, Integer> {
+
+		private final int mod;
+
+		Mod(int mod) {
+			this.mod = mod;
+		}
+
+		@Override
+		public Integer apply(Integer input) {
+			return input % mod;
+		}
+	}
+}
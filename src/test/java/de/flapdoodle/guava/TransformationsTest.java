@@ -19,17 +19,38 @@ package de.flapdoodle.guava;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+
+import de.flapdoodle.guava.functions.BiFunction;
+import de.flapdoodle.guava.functions.ToLongFunction;
+import de.flapdoodle.guava.functions.TriFunction;
+import de.flapdoodle.guava.monads.TryX;
 
 public class TransformationsTest {
 
@@ -59,6 +80,58 @@ public class TransformationsTest {
 		assertEquals("[A, A, A, B, B, B]", result.toString());
 	}
 
+	@Test
+	public void flatmapWithSingleValueTransformationShouldGiveOneEntryForEachElement() {
+		ImmutableList<? extends String> result = Transformations.flatmap(Lists.newArrayList(1, 2, 3),
+				Transformations.asCollection(new Function<Integer, String>() {
+
+					@Override
+					public String apply(Integer input) {
+						return "#" + input;
+					}
+				}));
+
+		assertEquals("[#1, #2, #3]", result.toString());
+		assertEquals("[A, B]", Transformations.flatmap(Lists.newArrayList("A", "B"), Transformations.<String> asCollection()).toString());
+	}
+
+	@Test
+	public void flatmapShouldSkipEmptyResults() {
+		ImmutableList<? extends Integer> result = Transformations.flatmap(Lists.newArrayList(0, 1, 0, 2),
+				new Function<Integer, Collection<Integer>>() {
+
+					@Override
+					public Collection<Integer> apply(Integer input) {
+						return Collections.nCopies(input, input);
+					}
+				});
+
+		assertEquals("[1, 2, 2]", result.toString());
+	}
+
+	@Test
+	public void parallelFlatmapShouldKeepSourceOrder() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 1000; i++) {
+			source.add(i % 4);
+		}
+		Function<Integer, Collection<Integer>> transformation = new Function<Integer, Collection<Integer>>() {
+
+			@Override
+			public Collection<Integer> apply(Integer input) {
+				return Collections.nCopies(input, input);
+			}
+		};
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(Transformations.flatmap(source, transformation), Transformations.flatmap(source, transformation, pool));
+			assertTrue(Transformations.flatmap(ImmutableList.<Integer> of(), transformation, pool).isEmpty());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	@Test
 	public void iterableFlatmapShouldGiveAllEntries() {
 		Iterable<? extends String> result = Transformations.flatmap(Lists.newArrayList("A", "B"),
@@ -73,6 +146,77 @@ public class TransformationsTest {
 		assertEquals("[A, A, A, B, B, B]", result.toString());
 	}
 
+	@Test
+	public void memoizedFlatmapShouldCallTransformationOnlyOnce() {
+		final AtomicInteger calls = new AtomicInteger();
+		Iterable<? extends String> flatmap = Transformations.flatmap(Lists.newArrayList("A", "B"),
+				new Function<String, Iterable<String>>() {
+
+					@Override
+					public Iterable<String> apply(String input) {
+						calls.incrementAndGet();
+						return Lists.newArrayList(input, input);
+					}
+				});
+		Iterable<String> result = Transformations.memoize(flatmap);
+
+		Iterator<String> first = result.iterator();
+		assertEquals("A", first.next());
+		assertEquals("[A, A, B, B]", result.toString());
+		assertEquals("[A, A, B, B]", result.toString());
+		assertEquals("A", first.next());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void memoizedIterableShouldFailAtSamePositionOnEveryTraversal() {
+		final AtomicInteger calls = new AtomicInteger();
+		Iterable<Integer> result = Transformations.memoize(Iterables.transform(Lists.newArrayList("1", "x", "3"),
+				new Function<String, Integer>() {
+
+					@Override
+					public Integer apply(String input) {
+						calls.incrementAndGet();
+						return Integer.valueOf(input);
+					}
+				}));
+
+		for (int i = 0; i < 2; i++) {
+			Iterator<Integer> iterator = result.iterator();
+			assertEquals(Integer.valueOf(1), iterator.next());
+			try {
+				iterator.next();
+				fail("should not reach this");
+			} catch (NumberFormatException nfx) {
+				assertEquals("For input string: \"x\"", nfx.getMessage());
+			}
+		}
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void memoizedIterableShouldGiveSameResultForConcurrentReaders() throws InterruptedException, ExecutionException {
+		final Iterable<Integer> result = Transformations.memoize(ContiguousSet.create(Range.closedOpen(0, 10000), DiscreteDomain.integers()));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<ImmutableList<Integer>>> futures = Lists.newArrayList();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(new Callable<ImmutableList<Integer>>() {
+
+					@Override
+					public ImmutableList<Integer> call() {
+						return ImmutableList.copyOf(result);
+					}
+				}));
+			}
+			for (Future<ImmutableList<Integer>> future : futures) {
+				assertEquals(ImmutableList.copyOf(result), future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void flatmapShouldGiveAllEntriesFromLists() {
 		List<? extends List<String>> lists = ImmutableList.<List<String>> builder().add(Lists.newArrayList("A", "B")).add(
@@ -125,6 +269,92 @@ public class TransformationsTest {
 		assertEquals("[Achim, Arnim]", map.get("A").toString());
 	}
 	
+	@Test
+	public void mapConcurrentlyShouldKeepSourceOrderAndRespectConcurrencyLimit() {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 50; i++) {
+			source.add(i);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			ImmutableList<String> result = Transformations.mapConcurrently(source, new Function<Integer, String>() {
+
+				@Override
+				public String apply(Integer input) {
+					int current = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), current));
+					}
+					try {
+						Thread.sleep(50 - input);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					return "#" + input;
+				}
+			}, executor, 3);
+
+			assertEquals(50, result.size());
+			assertEquals("#0", result.get(0));
+			assertEquals("#49", result.get(49));
+			assertTrue(maxRunning.get() <= 3);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void mapConcurrentlyShouldFailWithFirstFailure() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Transformations.mapConcurrently(Lists.newArrayList("1", "x", "3"), new ParseInt(), executor, 2);
+			fail("should not reach this");
+		} catch (NumberFormatException nfx) {
+			assertEquals("For input string: \"x\"", nfx.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void mapConcurrentlyShouldFailOnNullResult() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Transformations.mapConcurrently(Lists.newArrayList("1", "2", "3"), new Function<String, Integer>() {
+
+				@Override
+				public Integer apply(String input) {
+					return "2".equals(input)
+							? null
+							: Integer.valueOf(input);
+				}
+			}, executor, 2);
+			fail("should not reach this");
+		} catch (NullPointerException npx) {
+			assertEquals("transformation result is null", npx.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void tryMapConcurrentlyShouldCollectFailures() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ImmutableList<TryX<Integer>> result = Transformations.tryMapConcurrently(Lists.newArrayList("1", "x", "3"), new ParseInt(),
+					executor, 2);
+			assertEquals(3, result.size());
+			assertEquals(Integer.valueOf(1), result.get(0).get());
+			assertFalse(result.get(1).isSuccess());
+			assertEquals(Integer.valueOf(3), result.get(2).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void predicateWithTransformationIsPredicateWithDifferentType() {
 		Predicate<Integer> predicate = Transformations.map(Predicates.equalTo("12"),new Function<Integer, String>() {
@@ -143,6 +373,18 @@ public class TransformationsTest {
 		assertEquals(2,Transformations.firstOf(Lists.newArrayList("A","B"), 17).size());
 	}
 	
+	@Test
+	public void firstOfRandomAccessListShouldGiveSizedRandomAccessView() {
+		List<String> source = Lists.newArrayList("A", "B", "C");
+		Iterable<String> result = Transformations.firstOf((Iterable<String>) source, 2);
+		assertTrue(result instanceof RandomAccess);
+		assertEquals(2, ((List<String>) result).size());
+		assertEquals("[A, B]", result.toString());
+		source.remove(0);
+		source.remove(0);
+		assertEquals("[C]", result.toString());
+	}
+
 	@Test
 	public void firstOfShouldGiveOptionalPresentIfCollectionIsNotEmpty() {
 		assertTrue(Transformations.firstOf(Lists.newArrayList("A","B")).isPresent());
@@ -150,6 +392,77 @@ public class TransformationsTest {
 		assertEquals("C", Transformations.firstOf(Lists.newArrayList("C","B")).get());
 	}
 	
+	@Test
+	public void distinctByShouldKeepFirstElementForEachKey() {
+		Iterable<String> result = Transformations.distinctBy(Lists.newArrayList("Achim", "Susi", "Arnim", "Jochen", "Sven", null),
+				new Function<String, String>() {
+
+					@Override
+					public String apply(String input) {
+						return input != null
+								? input.substring(0, 1)
+								: null;
+					}
+				});
+		assertEquals("[Achim, Susi, Jochen, null]", result.toString());
+		assertEquals("[Achim, Susi, Jochen, null]", result.toString());
+	}
+
+	@Test
+	public void distinctByLongKeyShouldKeepFirstElementForEachKey() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 100; i++) {
+			source.add(i);
+		}
+		Iterable<Integer> result = Transformations.distinctBy(source, new ToLongFunction<Integer>() {
+
+			@Override
+			public long applyAsLong(Integer value) {
+				return value % 7;
+			}
+		});
+		assertEquals("[0, 1, 2, 3, 4, 5, 6]", result.toString());
+	}
+
+	@Test
+	public void approximatelyDistinctByShouldRemoveDuplicatesWhichAreStillRemembered() {
+		Function<String, String> firstLetter = new Function<String, String>() {
+
+			@Override
+			public String apply(String input) {
+				return input.substring(0, 1);
+			}
+		};
+		assertEquals("[A, B]", Transformations.approximatelyDistinctBy(Lists.newArrayList("A", "A1", "B", "A2", "B1"), firstLetter, 16).toString());
+	}
+
+	@Test
+	public void parallelDistinctByShouldGiveSameResultAsSequential() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 10000; i++) {
+			source.add(i % 997 == 500
+					? null
+					: (i * 31) % 1013);
+		}
+		Function<Integer, Integer> key = new Function<Integer, Integer>() {
+
+			@Override
+			public Integer apply(Integer input) {
+				return input != null
+						? input % 100
+						: null;
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			List<Integer> parallel = Transformations.distinctBy(source, key, pool);
+			assertEquals(Lists.newArrayList(Transformations.distinctBy((Iterable<Integer>) source, key)), parallel);
+			assertTrue(parallel.contains(null));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	@Test
 	public void partitionShouldSeparateMatchingFromOthers() {
 		Partition<Integer> partition = Transformations.partition(Lists.newArrayList(1, 2, 3, 4, 5, 6, 7),
@@ -180,6 +493,43 @@ public class TransformationsTest {
 		assertEquals("[]", partition.notMatching().toString());
 	}
 
+	@Test
+	public void splitOfRandomAccessListShouldGiveReadOnlyViews() {
+		List<String> source = Lists.newArrayList("A", "B", "C");
+		Partition<String> partition = Transformations.split(source, 2);
+		assertEquals("[A, B]", partition.matching().toString());
+		assertEquals("[C]", partition.notMatching().toString());
+		try {
+			partition.matching().clear();
+			fail("should not reach this");
+		} catch (UnsupportedOperationException ux) {
+			// expected
+		}
+		assertEquals("[A, B, C]", source.toString());
+	}
+
+	@Test
+	public void splitOfImmutableListShouldNotCopy() {
+		ImmutableList<String> source = ImmutableList.of("A", "B", "C");
+		Partition<String> partition = Transformations.split(source, 1);
+		assertTrue(partition.matching() instanceof ImmutableList);
+		assertEquals("[B, C]", partition.notMatching().toString());
+	}
+
+	@Test
+	public void splitOfIterableShouldBufferHeadAndKeepTailLazy() {
+		List<String> source = Lists.newLinkedList(Lists.newArrayList("A", "B", "C"));
+		Pair<ImmutableList<String>, Iterable<String>> split = Transformations.split((Iterable<String>) source, 1);
+		source.add("D");
+		assertEquals("[A]", split.a().toString());
+		assertEquals("[B, C, D]", split.b().toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void splitOfIterableShouldFailIfIndexIsBiggerThanSize() {
+		Transformations.split((Iterable<String>) Lists.newArrayList("A", "B"), 3);
+	}
+
 	@Test
 	public void zipShouldReturnPairForEachEntry() {
 		Collection<Pair<String, Integer>> result = Transformations.zip(Lists.newArrayList("A","B","C"), Lists.newArrayList(1,2,3));
@@ -191,6 +541,63 @@ public class TransformationsTest {
 		Transformations.zip(Lists.newArrayList("A","B","C"), Lists.newArrayList(1,2));
 	}
 	
+	@Test
+	public void zipOfIterablesShouldBeReiterable() {
+		Iterable<String> result = Transformations.zip(Lists.newLinkedList(Lists.newArrayList("A", "B")),
+				(Iterable<Integer>) Lists.newLinkedList(Lists.newArrayList(1, 2)), new Concat());
+		assertEquals("[A1, B2]", ImmutableList.copyOf(result).toString());
+		assertEquals("[A1, B2]", ImmutableList.copyOf(result).toString());
+	}
+
+	@Test
+	public void zipOfListsShouldGiveRandomAccessListWithKnownSize() {
+		List<String> result = Transformations.zip(ImmutableList.of("A", "B", "C"), ImmutableList.of(1, 2, 3), new Concat());
+		assertTrue(result instanceof RandomAccess);
+		assertEquals(3, result.size());
+		assertEquals("B2", result.get(1));
+		assertEquals("[B2, C3]", result.subList(1, 3).toString());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void zipOfListsShouldFailIfUnequalSized() {
+		Transformations.zip(ImmutableList.of("A", "B", "C"), ImmutableList.of(1, 2), new Concat());
+	}
+
+	@Test
+	public void zipOfThreeListsShouldCallZipperForEachRow() {
+		List<String> result = Transformations.zip(ImmutableList.of("A", "B"), ImmutableList.of(1, 2), ImmutableList.of('x', 'y'),
+				new TriFunction<String, Integer, Character, String>() {
+
+					@Override
+					public String apply(String a, Integer b, Character c) {
+						return a + b + c;
+					}
+				});
+		assertEquals("[A1x, B2y]", result.toString());
+	}
+
+	@Test
+	public void zipOfNListsShouldGiveRowForEachIndex() {
+		List<ImmutableList<String>> sources = ImmutableList.of(ImmutableList.of("A", "B"), ImmutableList.of("1", "2"),
+				ImmutableList.of("x", "y"), ImmutableList.of("-", "+"));
+		List<String> result = Transformations.zip(sources, new Function<List<String>, String>() {
+
+			@Override
+			public String apply(List<String> row) {
+				return Joiner.on("").join(row);
+			}
+		});
+		assertEquals("[A1x-, B2y+]", result.toString());
+	}
+
+	@Test
+	public void zipIntoShouldWriteIntoPreallocatedArray() {
+		String[] target = new String[3];
+		String[] result = Transformations.zipInto(ImmutableList.of("A", "B"), ImmutableList.of(1, 2), new Concat(), target);
+		assertTrue(result == target);
+		assertEquals("[A1, B2, null]", Arrays.toString(target));
+	}
+
 	@Test
 	public void noopShouldDoNothing() {
 		assertEquals("foo", Transformations.noop().apply("foo"));
@@ -200,4 +607,20 @@ public class TransformationsTest {
 	public void asCollectionShouldGiveCollectionForValue() {
 		assertEquals("[foo]", Transformations.asCollection().apply("foo").toString());
 	}
+
+	static class Concat implements BiFunction<String, Integer, String> {
+
+		@Override
+		public String apply(String a, Integer b) {
+			return a + b;
+		}
+	}
+
+	static class ParseInt implements Function<String, Integer> {
+
+		@Override
+		public Integer apply(String input) {
+			return Integer.parseInt(input);
+		}
+	}
 }
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+
+import de.flapdoodle.guava.Folds;
+import de.flapdoodle.guava.Foldleft;
+import de.flapdoodle.guava.Pair;
+import de.flapdoodle.guava.Transformations;
+
+public class PublishersTest {
+
+	@Test
+	public void publisherShouldOnlyEmitRequestedElements() {
+		Recorder<Integer> recorder = new Recorder<Integer>();
+		Publishers.from(Iterables.cycle(1, 2, 3)).subscribe(recorder);
+
+		recorder.request(4);
+		assertEquals("[1, 2, 3, 1]", recorder.items.toString());
+		recorder.request(2);
+		assertEquals("[1, 2, 3, 1, 2, 3]", recorder.items.toString());
+		recorder.subscription.cancel();
+		assertFalse(recorder.completed);
+	}
+
+	@Test
+	public void flatmapShouldRespectDemandOfInfiniteSource() {
+		Recorder<String> recorder = new Recorder<String>();
+		Publishers.flatmap(Publishers.from(Iterables.cycle("a", "b")), new Function<String, List<String>>() {
+
+			@Override
+			public List<String> apply(String input) {
+				return ImmutableList.of(input, input.toUpperCase());
+			}
+		}, 4).subscribe(recorder);
+
+		recorder.request(3);
+		assertEquals("[a, A, b]", recorder.items.toString());
+		recorder.request(3);
+		assertEquals("[a, A, b, B, a, A]", recorder.items.toString());
+		recorder.subscription.cancel();
+	}
+
+	@Test
+	public void flatmapShouldCompleteIfDemandMatchesElementCount() {
+		Recorder<String> recorder = new Recorder<String>();
+		Publishers.flatmap(Publishers.from(ImmutableList.of("a", "b")), new Function<String, List<String>>() {
+
+			@Override
+			public List<String> apply(String input) {
+				return ImmutableList.of(input, input);
+			}
+		}, 4).subscribe(recorder);
+
+		recorder.request(4);
+		assertEquals("[a, a, b, b]", recorder.items.toString());
+		assertEquals(null, recorder.error);
+		assertTrue(recorder.completed);
+	}
+
+	@Test
+	public void flatmapShouldSignalInvalidRequestAsError() {
+		Recorder<String> recorder = new Recorder<String>();
+		Publishers.flatmap(Publishers.from(ImmutableList.of("a", "b")), new Function<String, List<String>>() {
+
+			@Override
+			public List<String> apply(String input) {
+				return ImmutableList.of(input);
+			}
+		}, 4).subscribe(recorder);
+
+		recorder.request(0);
+		assertTrue(recorder.error instanceof IllegalArgumentException);
+		recorder.request(1);
+		assertTrue(recorder.items.isEmpty());
+		assertFalse(recorder.completed);
+	}
+
+	@Test
+	public void foldOfFlatmapShouldGiveSameResultAsTransformations() throws InterruptedException, ExecutionException {
+		ContiguousSet<Integer> source = ContiguousSet.create(Range.closedOpen(0, 1000), DiscreteDomain.integers());
+		Function<Integer, Collection<Integer>> twice = new Function<Integer, Collection<Integer>>() {
+
+			@Override
+			public Collection<Integer> apply(Integer input) {
+				return ImmutableList.of(input, input);
+			}
+		};
+
+		Publisher<Integer> flatmap = Publishers.flatmap(Publishers.from(source), twice, 16);
+		Long sum = Publishers.fold(flatmap, new Sum(), 0L, 10).get();
+		ImmutableList<? extends Integer> expected = Transformations.flatmap(source, twice);
+		assertEquals(Folds.foldLeft(expected, new Sum(), 0L), sum);
+	}
+
+	@Test
+	public void zipShouldCombineElementsOfBothSides() {
+		Recorder<Pair<String, Integer>> recorder = new Recorder<Pair<String, Integer>>();
+		Publishers.zip(Publishers.from(ImmutableList.of("A", "B", "C")), Publishers.from(ImmutableList.of(1, 2, 3)),
+				Pair.<String, Integer> asBiFunction(), 2).subscribe(recorder);
+
+		recorder.request(2);
+		assertEquals("[Pair[A, 1], Pair[B, 2]]", recorder.items.toString());
+		assertFalse(recorder.completed);
+		recorder.request(Long.MAX_VALUE);
+		assertEquals("[Pair[A, 1], Pair[B, 2], Pair[C, 3]]", recorder.items.toString());
+		assertEquals(null, recorder.error);
+		assertTrue(recorder.completed);
+	}
+
+	@Test
+	public void zipShouldFailIfUnequalSized() {
+		Recorder<Pair<String, Integer>> recorder = new Recorder<Pair<String, Integer>>();
+		Publishers.zip(Publishers.from(ImmutableList.of("A", "B", "C")), Publishers.from(ImmutableList.of(1, 2)),
+				Pair.<String, Integer> asBiFunction()).subscribe(recorder);
+
+		recorder.request(10);
+		assertEquals(2, recorder.items.size());
+		assertTrue(recorder.error instanceof IndexOutOfBoundsException);
+	}
+
+	@Test
+	public void partitionShouldRouteElementsWithIndependentDemand() {
+		Recorder<Integer> odd = new Recorder<Integer>();
+		Recorder<Integer> even = new Recorder<Integer>();
+		Publishers.partition(Publishers.from(ImmutableList.of(1, 2, 3, 4, 5, 6, 7)), new Predicate<Integer>() {
+
+			@Override
+			public boolean apply(Integer input) {
+				return input % 2 != 0;
+			}
+		}, odd, even, 2);
+
+		odd.request(1);
+		even.request(10);
+		assertEquals("[1]", odd.items.toString());
+		assertEquals("[2, 4]", even.items.toString());
+		odd.request(10);
+		assertEquals("[1, 3, 5, 7]", odd.items.toString());
+		assertEquals("[2, 4, 6]", even.items.toString());
+		assertTrue(odd.completed);
+		assertTrue(even.completed);
+	}
+
+	@Test
+	public void partitionShouldDropElementsOfCancelledSide() {
+		Recorder<Integer> odd = new Recorder<Integer>();
+		Recorder<Integer> even = new Recorder<Integer>();
+		Publishers.partition(Publishers.from(Iterables.cycle(1, 2)), new Predicate<Integer>() {
+
+			@Override
+			public boolean apply(Integer input) {
+				return input % 2 != 0;
+			}
+		}, odd, even, 4);
+
+		odd.subscription.cancel();
+		even.request(1000);
+		assertEquals(1000, even.items.size());
+		assertEquals(0, ((PartitionSubscriber.Side<?>) odd.subscription).queued());
+		assertTrue(odd.items.isEmpty());
+		even.subscription.cancel();
+	}
+
+	@Test
+	public void asMapShouldGroupLikeTransformationsMap() throws InterruptedException, ExecutionException {
+		Map<String, ? extends List<? extends String>> map = Publishers.asMap(
+				Publishers.from(Lists.newArrayList("Achim", "Susi", "Jochen", "Arnim")), new Function<String, String>() {
+
+					@Override
+					public String apply(String input) {
+						return input.substring(0, 1);
+					}
+				}, Folds.asListFold(Transformations.<String> asCollection()), 3).get();
+
+		assertEquals(3, map.size());
+		assertEquals("[Achim, Arnim]", map.get("A").toString());
+	}
+
+	static class Sum implements Foldleft<Integer, Long> {
+
+		@Override
+		public Long apply(Long left, Integer right) {
+			return left + right;
+		}
+	}
+
+	static class Recorder<T> implements Subscriber<T> {
+
+		final List<T> items = Lists.newArrayList();
+		Subscription subscription;
+		Throwable error;
+		boolean completed;
+
+		void request(long n) {
+			subscription.request(n);
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(T item) {
+			items.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+}
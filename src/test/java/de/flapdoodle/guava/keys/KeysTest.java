@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.keys;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.flapdoodle.guava.Folds;
+import de.flapdoodle.guava.Transformations;
+import de.flapdoodle.guava.functions.ToIntFunction;
+
+public class KeysTest {
+
+	ImmutableList<String> source = ImmutableList.of("ab1", "ab2", "ac1", "bb1", "ab3");
+
+	@Test
+	public void key2ShouldGroupLikeAPair() {
+		Map<Key2<Character, Character>, ImmutableList<? extends String>> result = Transformations.map(source,
+				Keys.of(new CharAt(0), new CharAt(1)), Folds.asListFold(Transformations.<String> asCollection()));
+
+		assertEquals(3, result.size());
+		assertEquals("[ab1, ab2, ab3]", result.get(Key2.of('a', 'b')).toString());
+		assertEquals('c', result.get(Key2.of('a', 'c')).get(0).charAt(1));
+	}
+
+	@Test
+	public void key3ShouldCompareAllFields() {
+		assertEquals(Key3.of("a", null, 1), Key3.of("a", null, 1));
+		assertEquals(Key3.of("a", null, 1).hashCode(), Key3.of("a", null, 1).hashCode());
+		assertFalse(Key3.of("a", null, 1).equals(Key3.of("a", null, 2)));
+		assertFalse(Key3.of("a", "b", 1).equals(Key2.of("a", "b")));
+	}
+
+	@Test
+	public void packedKeyShouldGiveComponentsBack() {
+		PackedKey key = PackedKey.of(-7, Integer.MIN_VALUE);
+
+		assertEquals(-7, key.a());
+		assertEquals(Integer.MIN_VALUE, key.b());
+		assertEquals(PackedKey.of(-7, Integer.MIN_VALUE), key);
+		assertFalse(PackedKey.of(Integer.MIN_VALUE, -7).equals(key));
+	}
+
+	@Test
+	public void packedKeysShouldGroupAndDistinct() {
+		Map<PackedKey, String> result = Transformations.map(ImmutableList.of("ab1", "ac1"), Keys.packed(new CodeAt(0), new CodeAt(1)));
+		assertEquals("ab1", result.get(PackedKey.of('a', 'b')));
+
+		Iterable<String> distinct = Transformations.distinctBy(source, Keys.packedLong(new CodeAt(0), new CodeAt(1)));
+		assertEquals(ImmutableSet.of("ab1", "ac1", "bb1"), ImmutableSet.copyOf(distinct));
+	}
+
+	static class CharAt implements Function<String, Character> {
+
+		private final int index;
+
+		CharAt(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Character apply(String input) {
+			return input.charAt(index);
+		}
+	}
+
+	static class CodeAt implements ToIntFunction<String> {
+
+		private final int index;
+
+		CodeAt(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int applyAsInt(String value) {
+			return value.charAt(index);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.guava.live;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import de.flapdoodle.guava.Folds;
+import de.flapdoodle.guava.Foldleft;
+import de.flapdoodle.guava.Pipeline;
+
+/**
+ * compares a fused pipeline with the chain of views, not part of the default test run
+ */
+public class PipelineBenchmark {
+
+	private static final int ROUNDS = 20;
+
+	private static final Predicate<Integer> EVEN = new Predicate<Integer>() {
+
+		@Override
+		public boolean apply(Integer input) {
+			return input % 2 == 0;
+		}
+	};
+
+	private static final Function<Integer, List<Integer>> TWICE = new Function<Integer, List<Integer>>() {
+
+		@Override
+		public List<Integer> apply(Integer input) {
+			return ImmutableList.of(input, input + 1);
+		}
+	};
+
+	private static final Function<Integer, Long> SQUARE = new Function<Integer, Long>() {
+
+		@Override
+		public Long apply(Integer input) {
+			return (long) input * input;
+		}
+	};
+
+	private static final Foldleft<Long, Long> SUM = new Foldleft<Long, Long>() {
+
+		@Override
+		public Long apply(Long left, Long right) {
+			return left + right;
+		}
+	};
+
+	@Test
+	public void fusedPipelineAgainstViewChain() {
+		List<Integer> source = Lists.newArrayList();
+		for (int i = 0; i < 1000000; i++) {
+			source.add(i);
+		}
+
+		Pipeline<Integer, Long> pipeline = Pipeline.<Integer> start().filter(EVEN).flatmap(TWICE).map(SQUARE);
+
+		long viewResult = 0;
+		long fusedResult = 0;
+		long viewTime = 0;
+		long fusedTime = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			Collection<Integer> filtered = Collections2.filter(source, EVEN);
+			viewResult = Folds.foldLeft(FluentIterable.from(filtered).transformAndConcat(TWICE).transform(SQUARE), SUM, 0L);
+			viewTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			fusedResult = pipeline.foldLeft(source, SUM, 0L);
+			fusedTime += System.nanoTime() - start;
+		}
+		assertEquals(viewResult, fusedResult);
+
+		System.out.println("view chain: " + viewTime / ROUNDS / 1000 + "us, fused pipeline: " + fusedTime / ROUNDS / 1000 + "us");
+	}
+}